@@ -0,0 +1,99 @@
+package com.nefarious.edu_share.auth.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.nefarious.edu_share.auth.util.enums.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of validating one refresh token.
+ * <p>
+ * {@code legacyFourVerifies} replays the old validateSession path (validateToken, isRefreshToken and
+ * getUserIdFromJwt twice, each a full HMAC verify); {@code verifyOnce} is a single uncached verification
+ * and {@code verifyCached} is a repeat lookup served from the verified-token cache.
+ * {@code generateToken} is the signing cost paid twice per signin and refresh, and {@code verifyAccessToken} is the
+ * {@link JwtProvider#verify} call {@link AuthTokenBearer} makes for the bearer token of every authenticated request,
+ * cycling through {@value #ACCESS_POOL_SIZE} tokens against a {@value #ACCESS_CACHE_SIZE}-entry cache so nearly every
+ * call misses it, as for a request whose token this node has not seen recently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtProviderBenchmark {
+    private static final String SECRET = "benchmark-secret-at-least-256-bits-long!";
+    /** Power of two, so the next token is picked with a mask */
+    private static final int ACCESS_POOL_SIZE = 4096;
+    private static final long ACCESS_CACHE_SIZE = 64;
+
+    private JwtProvider jwtProvider;
+    private JwtProvider accessProvider;
+    private JWTVerifier legacyVerifier;
+    private String refreshToken;
+    private String[] accessTokens;
+    private int nextAccessToken;
+    private UUID userId;
+
+    @Setup
+    public void setup() {
+        jwtProvider = provider(10_000L);
+        accessProvider = provider(ACCESS_CACHE_SIZE);
+        legacyVerifier = JWT.require(Algorithm.HMAC256(SECRET.getBytes())).build();
+        userId = UUID.randomUUID();
+        refreshToken = jwtProvider.generateToken(userId, TokenType.REFRESH, 0L);
+        accessTokens = new String[ACCESS_POOL_SIZE];
+        for (int i = 0; i < ACCESS_POOL_SIZE; i++) {
+            accessTokens[i] = accessProvider.generateToken(UUID.randomUUID(), TokenType.ACCESS, 0L);
+        }
+    }
+
+    private static JwtProvider provider(long verifiedCacheSize) {
+        JwtProvider provider = new JwtProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "accessExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(provider, "refreshExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", verifiedCacheSize);
+        provider.init();
+        return provider;
+    }
+
+    @Benchmark
+    public void legacyFourVerifies(Blackhole bh) {
+        legacyVerifier.verify(refreshToken);
+        DecodedJWT typed = legacyVerifier.verify(refreshToken);
+        bh.consume("refresh".equals(typed.getClaim("type").asString()));
+        bh.consume(UUID.fromString(legacyVerifier.verify(refreshToken).getSubject()));
+        bh.consume(UUID.fromString(legacyVerifier.verify(refreshToken).getSubject()));
+    }
+
+    @Benchmark
+    public VerifiedToken verifyOnce() {
+        return jwtProvider.decode(refreshToken);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyCached() {
+        return jwtProvider.verify(refreshToken);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtProvider.generateToken(userId, TokenType.ACCESS, 0L);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyAccessToken() {
+        nextAccessToken = (nextAccessToken + 1) & (ACCESS_POOL_SIZE - 1);
+        return accessProvider.verify(accessTokens[nextAccessToken]);
+    }
+}
@@ -0,0 +1,48 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.nefarious.edu_share.auth.util.enums.OtpMode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of producing one OTP code, without the Redis round trip.
+ * <p>
+ * {@code randomCode} is the stored mode (SecureRandom per character); {@code derivedCode} is the stateless mode
+ * (one HMAC-SHA256 over the email, issue counter and time step).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OtpServiceBenchmark {
+    private static final String EMAIL = "student@school.edu";
+
+    private OtpService otpService;
+    private long step;
+
+    @Setup
+    public void setup() {
+        otpService = new OtpService(null);
+        ReflectionTestUtils.setField(otpService, "otpTtl", 300);
+        ReflectionTestUtils.setField(otpService, "otpMaxAttempts", 2);
+        ReflectionTestUtils.setField(otpService, "otpMode", OtpMode.STATELESS);
+        ReflectionTestUtils.setField(otpService, "otpStepSeconds", 60L);
+        ReflectionTestUtils.setField(otpService, "otpSecret", "benchmark-secret-at-least-256-bits-long!");
+        otpService.init();
+        step = System.currentTimeMillis() / 60_000;
+    }
+
+    @Benchmark
+    public String randomCode() {
+        return otpService.generateOtp();
+    }
+
+    @Benchmark
+    public String derivedCode() {
+        return otpService.deriveOtp(EMAIL, 1, step);
+    }
+}
@@ -0,0 +1,35 @@
+package com.nefarious.edu_share.auth.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of matching {@link Constants#VALID_PASSWORD_REGEXP}, compiled once as the validator does.
+ * <p>
+ * The lookaheads each rescan the input, so the longest accepted and the rejected inputs are measured
+ * next to a typical one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordRegexBenchmark {
+    @Param({"Str0ng!Pass", "Abcdefghijklmnopqrstuv1!", "abcdefghijklmnopqrstuvwx", "Has Space1!"})
+    private String password;
+
+    private Pattern pattern;
+
+    @Setup
+    public void setup() {
+        pattern = Pattern.compile(Constants.VALID_PASSWORD_REGEXP);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return pattern.matcher(password).matches();
+    }
+}
@@ -0,0 +1,99 @@
+package com.nefarious.edu_share.shared.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.nefarious.edu_share.shared.dto.EmailJob;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Email throughput against a local GreenMail SMTP server.
+ * <p>
+ * {@code connectionPerEmail} replays the old path (MimeMessageHelper, {@code String.formatted} and a new SMTP
+ * connection per email); {@code pooledBatch} sends the same emails through {@link SmtpService#sendBatch} over a
+ * pooled transport. Scores are per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmtpServiceBenchmark {
+    private static final int BATCH_SIZE = 20;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool transportPool;
+    private SmtpService smtpService;
+    private List<EmailJob> jobs;
+
+    @Setup
+    public void setup() throws Exception {
+        ServerSetup smtp = new ServerSetup(3025, "localhost", ServerSetup.PROTOCOL_SMTP);
+        greenMail = new GreenMail(smtp);
+        greenMail.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+
+        transportPool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(transportPool, "maxSize", 4);
+        ReflectionTestUtils.setField(transportPool, "idleTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(transportPool, "borrowTimeoutMs", 5_000L);
+        transportPool.init();
+        smtpService = new SmtpService(transportPool);
+        ReflectionTestUtils.setField(smtpService, "from", "no-reply@edushare.test");
+        smtpService.init();
+
+        jobs = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> EmailJob.otp("user" + i + "@edushare.test", "ABCDE" + (10000 + i)))
+                .toList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        transportPool.shutdown();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerEmail() throws MessagingException {
+        for (EmailJob job : jobs) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
+            helper.setFrom("no-reply@edushare.test");
+            helper.setTo(job.to());
+            helper.setSubject("Your Verification Code");
+            String html = """
+            <p>Hello,</p>
+            <p>Your one-time code is <b>%s</b></p>
+            <p>This code expires in 10 minutes.</p>
+            """.formatted(job.code());
+            helper.setText(html, true);
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Map<EmailJob, Exception> pooledBatch() {
+        return smtpService.sendBatch(jobs);
+    }
+}
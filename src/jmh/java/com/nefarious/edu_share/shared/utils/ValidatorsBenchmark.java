@@ -0,0 +1,33 @@
+package com.nefarious.edu_share.shared.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Validators#assertValidEmail(String, String)} for an accepted and a rejected address;
+ * the rejected one includes building and throwing the bind exception.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorsBenchmark {
+    @Benchmark
+    public void validEmail() {
+        Validators.assertValidEmail("student@school.edu", "email");
+    }
+
+    @Benchmark
+    public Object invalidEmail() {
+        try {
+            Validators.assertValidEmail("student@@school", "email");
+            return null;
+        } catch (WebExchangeBindException ex) {
+            return ex;
+        }
+    }
+}
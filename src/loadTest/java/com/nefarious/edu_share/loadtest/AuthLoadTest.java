@@ -0,0 +1,137 @@
+package com.nefarious.edu_share.loadtest;
+
+import com.nefarious.edu_share.EduShareApplication;
+import com.nefarious.edu_share.shared.interfaces.EmailService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process end-to-end load test of AuthController.
+ * <p>
+ * Boots the whole application on a random port against an embedded Postgres (the schema uses Postgres-only
+ * features, so an in-memory database would not run it) and an embedded Redis (Lua scripts, streams and pub/sub),
+ * with {@link CapturingEmailService} in place of SMTP. Virtual users then drive the mix from {@link LoadSettings}
+ * over real HTTP, and throughput and p50/p99/p999 latency are printed per endpoint.
+ * <p>
+ * Run with {@code ./gradlew loadTest -Dloadtest.users=128 -Dloadtest.duration-seconds=120}.
+ */
+public class AuthLoadTest {
+    private static final Path SCHEMA = Path.of("src/main/java/com/nefarious/edu_share/user/docs/DB_Migration_SQL.txt");
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            applySchema(postgres);
+            CapturingEmailService emailService = new CapturingEmailService();
+            try (ConfigurableApplicationContext context = boot(postgres.getPort(), redisPort, emailService)) {
+                int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+                run(settings, context.getBean(WebClient.Builder.class), port, emailService);
+            }
+        } finally {
+            redis.stop();
+        }
+    }
+
+    private static ConfigurableApplicationContext boot(int postgresPort, int redisPort, CapturingEmailService emailService) {
+        return new SpringApplicationBuilder(EduShareApplication.class)
+                .profiles("loadtest")
+                .initializers(context -> ((GenericApplicationContext) context).registerBean("capturingEmailService",
+                        EmailService.class, () -> emailService, definition -> definition.setPrimary(true)))
+                // Command-line arguments outrank application.properties, whose values point at real infrastructure
+                .run("--server.port=0",
+                        "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgresPort + "/postgres",
+                        "--spring.r2dbc.username=postgres",
+                        "--spring.r2dbc.password=postgres",
+                        "--spring.data.redis.port=" + redisPort);
+    }
+
+    private static void run(LoadSettings settings, WebClient.Builder builder, int port, CapturingEmailService emailService)
+            throws InterruptedException {
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(settings.users())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = builder.clone()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+
+        AtomicReference<Map<LoadAction, EndpointStats>> stats = new AtomicReference<>(newStats());
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.warmupSeconds() + settings.durationSeconds());
+
+        System.out.printf("Load test: %d users, %ds warm-up, %ds measured, mix %s%n",
+                settings.users(), settings.warmupSeconds(), settings.durationSeconds(), settings.mix());
+        CompletableFuture<Void> users = Flux.range(0, settings.users())
+                .flatMap(i -> new VirtualUser(client, emailService, stats::get, settings, runId)
+                        .run(() -> System.nanoTime() < endNanos), settings.users())
+                .then()
+                .toFuture();
+
+        TimeUnit.SECONDS.sleep(settings.warmupSeconds());
+        stats.set(newStats());
+        long measuredFrom = System.nanoTime();
+        users.join();
+        double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+
+        report(stats.get(), seconds);
+        connections.dispose();
+    }
+
+    private static void report(Map<LoadAction, EndpointStats> stats, double seconds) {
+        System.out.printf("%n%-12s %9s %8s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+        stats.forEach((action, endpoint) -> System.out.printf("%-12s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                action.name().toLowerCase(), endpoint.count(), endpoint.errors(), endpoint.count() / seconds,
+                endpoint.percentileMs(50), endpoint.percentileMs(99), endpoint.percentileMs(99.9), endpoint.maxMs(),
+                endpoint.statuses()));
+        long total = stats.values().stream().mapToLong(EndpointStats::count).sum();
+        System.out.printf("%-12s %9d %8s %9.1f   over %.1fs%n", "total", total, "", total / seconds, seconds);
+    }
+
+    private static Map<LoadAction, EndpointStats> newStats() {
+        Map<LoadAction, EndpointStats> stats = new EnumMap<>(LoadAction.class);
+        for (LoadAction action : LoadAction.values()) {
+            stats.put(action, new EndpointStats());
+        }
+        return stats;
+    }
+
+    private static void applySchema(EmbeddedPostgres postgres) throws Exception {
+        String schema = Files.readString(Path.of(System.getProperty("loadtest.schema", SCHEMA.toString())));
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(schema);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.nefarious.edu_share.loadtest;
+
+import com.nefarious.edu_share.shared.interfaces.EmailService;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Stand-in for the SMTP outbox: keeps the last OTP sent to each address so virtual users can read it back */
+public class CapturingEmailService implements EmailService {
+    private final Map<String, String> codes = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> sendOtpEmail(String to, String otpCode) {
+        return Mono.fromRunnable(() -> codes.put(to, otpCode));
+    }
+
+    /** Remove and return the last code sent to this address, or null if none was sent */
+    public String takeCode(String email) {
+        return codes.remove(email);
+    }
+}
@@ -0,0 +1,49 @@
+package com.nefarious.edu_share.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency histogram (microseconds) and status counts of one endpoint; status 0 means no HTTP response */
+public class EndpointStats {
+    private static final long MAX_TRACKED_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Histogram latency = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    public void record(long elapsedNanos, int status) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_TRACKED_MICROS));
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public long count() {
+        return latency.getTotalCount();
+    }
+
+    public long errors() {
+        return statuses.entrySet().stream()
+                .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+    }
+
+    /** Latency at the given percentile, in milliseconds */
+    public double percentileMs(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double maxMs() {
+        return latency.getMaxValue() / 1000.0;
+    }
+
+    public Map<Integer, Long> statuses() {
+        Map<Integer, Long> sorted = new TreeMap<>();
+        statuses.forEach((status, count) -> sorted.put(status, count.sum()));
+        return sorted;
+    }
+}
@@ -0,0 +1,22 @@
+package com.nefarious.edu_share.loadtest;
+
+import com.nefarious.edu_share.auth.util.Endpoint;
+
+/** AuthController endpoints driven by the harness, one latency histogram each */
+public enum LoadAction {
+    SIGNUP(Endpoint.SIGNUP),
+    VERIFY_OTP(Endpoint.VERIFY_OTP),
+    SIGNIN(Endpoint.SIGNIN),
+    REFRESH(Endpoint.REFRESH_SESSION),
+    LOGOUT(Endpoint.LOGOUT);
+
+    private final String path;
+
+    LoadAction(String path) {
+        this.path = path;
+    }
+
+    public String path() {
+        return Endpoint.AUTH + path;
+    }
+}
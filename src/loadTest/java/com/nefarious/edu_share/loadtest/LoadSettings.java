@@ -0,0 +1,49 @@
+package com.nefarious.edu_share.loadtest;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Harness settings, read from {@code loadtest.*} system properties (forwarded by the Gradle task).
+ *
+ * @param users          concurrent virtual users, each waiting for its reply before the next request
+ * @param warmupSeconds  run time before latencies are recorded
+ * @param durationSeconds recorded run time
+ * @param thinkTimeMs    pause between two requests of the same user
+ * @param mix            relative weight of each action a user picks next; verify-otp always follows a signup
+ */
+public record LoadSettings(int users, int warmupSeconds, int durationSeconds, long thinkTimeMs,
+                           Map<LoadAction, Integer> mix) {
+
+    private static final String DEFAULT_MIX = "signup:1,signin:2,refresh:6,logout:1";
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("loadtest.users", 64),
+                Integer.getInteger("loadtest.warmup-seconds", 10),
+                Integer.getInteger("loadtest.duration-seconds", 60),
+                Long.getLong("loadtest.think-time-ms", 0L),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)));
+    }
+
+    /** Parse {@code action:weight,...}; action names match {@link LoadAction} case-insensitively, '-' for '_' */
+    static Map<LoadAction, Integer> parseMix(String mix) {
+        Map<LoadAction, Integer> weights = new EnumMap<>(LoadAction.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected action:weight, got '" + entry + "'");
+            }
+            LoadAction action = LoadAction.valueOf(parts[0].trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            if (action == LoadAction.VERIFY_OTP) {
+                throw new IllegalArgumentException("verify-otp runs after every signup and has no weight of its own");
+            }
+            weights.put(action, Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Mix '" + mix + "' has no positive weight");
+        }
+        return weights;
+    }
+}
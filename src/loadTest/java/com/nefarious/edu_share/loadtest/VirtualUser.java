@@ -0,0 +1,153 @@
+package com.nefarious.edu_share.loadtest;
+
+import com.nefarious.edu_share.auth.dto.OtpVerificationRequest;
+import com.nefarious.edu_share.auth.dto.SigninRequest;
+import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.dto.TokenPair;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * One closed-loop client: picks an action from the mix, waits for the reply, and repeats.
+ * <p>
+ * Actions that need state fall back to the step that creates it: signin without an account signs up,
+ * refresh and logout without a session sign in. Each user keeps at most one account and one session.
+ */
+class VirtualUser {
+    private static final String PASSWORD = "Load!Test1";
+    private static final LocalDate DATE_OF_BIRTH = LocalDate.of(2000, 1, 1);
+    /** Shared across users so every signup gets a fresh email and username */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final WebClient client;
+    private final CapturingEmailService emailService;
+    /** Swapped by the harness when the warm-up ends */
+    private final Supplier<Map<LoadAction, EndpointStats>> stats;
+    private final LoadSettings settings;
+    private final String runId;
+    private final int totalWeight;
+
+    private String email;
+    private TokenPair session;
+
+    VirtualUser(WebClient client, CapturingEmailService emailService, Supplier<Map<LoadAction, EndpointStats>> stats,
+                LoadSettings settings, String runId) {
+        this.client = client;
+        this.emailService = emailService;
+        this.stats = stats;
+        this.settings = settings;
+        this.runId = runId;
+        this.totalWeight = settings.mix().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /** Keep issuing requests while {@code running} holds */
+    Mono<Void> run(BooleanSupplier running) {
+        Mono<Void> step = Mono.defer(() -> perform(nextAction()));
+        if (settings.thinkTimeMs() > 0) {
+            step = step.then(Mono.delay(Duration.ofMillis(settings.thinkTimeMs()))).then();
+        }
+        return step.repeat(running).then();
+    }
+
+    private LoadAction nextAction() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<LoadAction, Integer> entry : settings.mix().entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable: pick exceeds total weight");
+    }
+
+    private Mono<Void> perform(LoadAction action) {
+        return switch (action) {
+            case SIGNUP, VERIFY_OTP -> signup();
+            case SIGNIN -> email == null ? signup() : signin();
+            case REFRESH -> session == null ? perform(LoadAction.SIGNIN) : refresh();
+            case LOGOUT -> session == null ? perform(LoadAction.SIGNIN) : logout();
+        };
+    }
+
+    /** Register a new account and verify it with the OTP the stand-in email service captured */
+    private Mono<Void> signup() {
+        String id = runId + Long.toString(SEQUENCE.incrementAndGet(), 36);
+        SignupRequest request = new SignupRequest();
+        request.setEmail("lt-" + id + "@loadtest.edu");
+        request.setUsername("lt-" + id);
+        request.setPassword(PASSWORD);
+        request.setFirstName("Load");
+        request.setLastName("Test");
+        request.setDateOfBirth(DATE_OF_BIRTH);
+
+        return call(LoadAction.SIGNUP, request, Void.class)
+                .filter(Reply::ok)
+                .mapNotNull(reply -> emailService.takeCode(request.getEmail()))
+                .flatMap(code -> {
+                    OtpVerificationRequest verify = new OtpVerificationRequest();
+                    verify.setEmail(request.getEmail());
+                    verify.setCode(code);
+                    return call(LoadAction.VERIFY_OTP, verify, TokenPair.class);
+                })
+                .filter(Reply::ok)
+                .doOnNext(reply -> {
+                    email = request.getEmail();
+                    session = reply.body();
+                })
+                .then();
+    }
+
+    private Mono<Void> signin() {
+        SigninRequest request = new SigninRequest();
+        request.setEmail(email);
+        request.setPassword(PASSWORD);
+        return call(LoadAction.SIGNIN, request, TokenPair.class)
+                .filter(Reply::ok)
+                .doOnNext(reply -> session = reply.body())
+                .then();
+    }
+
+    private Mono<Void> refresh() {
+        return call(LoadAction.REFRESH, session, TokenPair.class)
+                // A rejected refresh token is no longer usable, sign in again next time
+                .doOnNext(reply -> session = reply.ok() ? reply.body() : null)
+                .then();
+    }
+
+    private Mono<Void> logout() {
+        return call(LoadAction.LOGOUT, session, Void.class)
+                .doOnNext(reply -> session = null)
+                .then();
+    }
+
+    /** POST the body, record latency and status, and never fail: transport errors are status 0 */
+    private <T> Mono<Reply<T>> call(LoadAction action, Object body, Class<T> type) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return client.post()
+                    .uri(action.path())
+                    .bodyValue(body)
+                    .exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+                            ? response.bodyToMono(type)
+                                    .map(value -> new Reply<>(response.statusCode().value(), value))
+                                    .defaultIfEmpty(new Reply<>(response.statusCode().value(), null))
+                            : response.releaseBody().thenReturn(new Reply<T>(response.statusCode().value(), null)))
+                    .onErrorResume(e -> Mono.just(new Reply<>(0, null)))
+                    .doOnNext(reply -> stats.get().get(action).record(System.nanoTime() - started, reply.status()));
+        });
+    }
+
+    private record Reply<T>(int status, T body) {
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
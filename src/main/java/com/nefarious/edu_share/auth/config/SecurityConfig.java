@@ -1,43 +1,107 @@
 package com.nefarious.edu_share.auth.config;
 
 import com.nefarious.edu_share.auth.security.AuthTokenBearer;
+import com.nefarious.edu_share.auth.security.BCryptCostCalibrator;
+import com.nefarious.edu_share.auth.security.JwtProvider;
 import com.nefarious.edu_share.auth.service.SessionService;
 import com.nefarious.edu_share.auth.util.Endpoint;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Configuration
 public class SecurityConfig {
+    /** Hash prefix of the encoder used for new hashes */
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+    private static final String SCRAPER_ROLE = "METRICS_SCRAPER";
+
     /**
-     * Defines a {@link PasswordEncoder} bean using BCrypt hashing algorithm.
-     * @return a new {@link BCryptPasswordEncoder} instance
+     * Defines a {@link PasswordEncoder} bean producing {@code {id}}-prefixed hashes.
+     * <p>
+     * New hashes use BCrypt at the cost calibrated for this node by {@link BCryptCostCalibrator}.
+     * Legacy hashes without a prefix are still matched as BCrypt, and {@link PasswordEncoder#upgradeEncoding}
+     * reports them (and any lower cost) so they get rehashed on the next successful sign-in.
+     * @param targetMs target time for a single hash
+     * @param minCost  lowest BCrypt cost accepted, even on slow hardware
+     * @param maxCost  highest BCrypt cost accepted, even on fast hardware
+     * @return a new {@link DelegatingPasswordEncoder} instance
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${password-hashing.target-ms}") long targetMs,
+                                           @Value("${password-hashing.min-cost}") int minCost,
+                                           @Value("${password-hashing.max-cost}") int maxCost) {
+        int cost = BCryptCostCalibrator.calibrate(minCost, maxCost, targetMs);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID,
+                Map.of(BCRYPT_ID, new BCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 
     /**
      * Defines a {@link AuthTokenBearer} bean used to validate and authenticate bearer tokens.
      * @param sessionService {@link SessionService} service to validate user sessions
+     * @param jwtProvider {@link JwtProvider} to verify the bearer JWT once per request
+     * @param adminIds users granted ROLE_ADMIN, from the comma-separated {@code admin.user-ids}
      * @return a new {@link AuthTokenBearer} instance
      */
     @Bean
-    public AuthTokenBearer authTokenBearer(SessionService sessionService) {
-        return new AuthTokenBearer(sessionService);
+    public AuthTokenBearer authTokenBearer(SessionService sessionService, JwtProvider jwtProvider,
+                                           @Value("${admin.user-ids}") Set<UUID> adminIds) {
+        return new AuthTokenBearer(sessionService, jwtProvider, Set.copyOf(adminIds));
+    }
+
+    /**
+     * Guards the Prometheus scrape endpoint with HTTP Basic for a single scrape account, ahead of the main chain.
+     * The account comes from {@code metrics-scrape.username} and {@code metrics-scrape.password}.
+     *
+     * @param http            the ServerHttpSecurity to configure
+     * @param passwordEncoder encoder the scrape password is hashed and checked with
+     * @return a SecurityWebFilterChain matching only the scrape endpoint
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain prometheusScrapeFilterChain(ServerHttpSecurity http, PasswordEncoder passwordEncoder,
+                                                              @Value("${metrics-scrape.username}") String username,
+                                                              @Value("${metrics-scrape.password}") String password) {
+        UserDetailsRepositoryReactiveAuthenticationManager scrapers = new UserDetailsRepositoryReactiveAuthenticationManager(
+                new MapReactiveUserDetailsService(User.withUsername(username)
+                        .password(passwordEncoder.encode(password))
+                        .roles(SCRAPER_ROLE)
+                        .build()));
+        scrapers.setPasswordEncoder(passwordEncoder);
+        http.securityMatcher(ServerWebExchangeMatchers.pathMatchers(PROMETHEUS_PATH));
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable);
+        http.securityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+        http.authorizeExchange(exchanges -> exchanges.anyExchange().hasRole(SCRAPER_ROLE));
+        http.httpBasic(basic -> basic.authenticationManager(scrapers));
+        http.formLogin(ServerHttpSecurity.FormLoginSpec::disable);
+        return http.build();
     }
 
     /**
      * Configures the security filter chain for the application.
      * <p>
      * Disables CSRF protection and HTTP Basic/Form login, uses a no-op security context,
-     * permits unauthenticated access to Swagger UI, API docs, and authentication endpoints,
+     * permits unauthenticated access to Swagger UI, API docs, authentication endpoints,
+     * and the Actuator health endpoint, restricts admin endpoints to ROLE_ADMIN,
      * and applies a custom bearer token authentication filter to all other requests.
      *
      * @param http             the ServerHttpSecurity to configure
@@ -49,8 +113,10 @@ public class SecurityConfig {
         http.csrf(ServerHttpSecurity.CsrfSpec::disable);
         http.securityContextRepository(NoOpServerSecurityContextRepository.getInstance());
         http.authorizeExchange(exchanges -> exchanges
-                .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", Endpoint.AUTH + "/**")
+                .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", Endpoint.AUTH + "/**", "/actuator/health")
                 .permitAll()
+                .pathMatchers(Endpoint.ADMIN + "/**")
+                .hasRole("ADMIN")
                 .anyExchange()
                 .authenticated()
         );
@@ -0,0 +1,50 @@
+package com.nefarious.edu_share.auth.controller;
+
+import com.nefarious.edu_share.auth.dto.ImportResult;
+import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.service.UserImportService;
+import com.nefarious.edu_share.auth.util.Endpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/** Administrative operations; every route requires ROLE_ADMIN (see SecurityConfig). */
+@RestController
+@RequestMapping(Endpoint.ADMIN)
+@RequiredArgsConstructor
+public class AdminController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+
+    /**
+     * Bulk-creates accounts from newline-delimited JSON, one {@link SignupRequest} per line.
+     *
+     * <p>The body is consumed as a stream; a per-row {@link ImportResult} is streamed back as NDJSON
+     * in input order, and each created account is sent its verification OTP in the background.
+     *
+     * @param requests the rows to import
+     * @return 200 OK with one {@link ImportResult} per row
+     */
+    @PostMapping(value = Endpoint.USER_IMPORT, consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportResult> importUsers(@RequestBody Flux<SignupRequest> requests) {
+        return userImportService.importJson(requests);
+    }
+
+    /**
+     * Bulk-creates accounts from CSV with a header row of
+     * {@code email,username,password,firstName,lastName,dateOfBirth} (any order, dates as yyyy-MM-dd).
+     *
+     * @param lines the CSV body, line by line
+     * @return 200 OK with one {@link ImportResult} per data row
+     */
+    @PostMapping(value = Endpoint.USER_IMPORT, consumes = TEXT_CSV, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportResult> importUsersCsv(@RequestBody Flux<String> lines) {
+        return userImportService.importCsv(lines);
+    }
+}
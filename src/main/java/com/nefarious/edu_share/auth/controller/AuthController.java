@@ -6,6 +6,7 @@ import com.nefarious.edu_share.auth.util.Endpoint;
 import com.nefarious.edu_share.shared.annotation.RateLimiter;
 import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
 import com.nefarious.edu_share.shared.utils.Validators;
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -31,6 +32,26 @@ public class AuthController {
         return authService.signup(signupRequest);
     }
 
+    /**
+     * Handles email/username availability checks from the signup form.
+     *
+     * <p>Cheap enough to call on every keystroke: most answers come from an in-memory filter.
+     * Rate-limited per client address.
+     *
+     * @param email    the email to check (optional)
+     * @param username the username to check (optional)
+     * @return 200 OK with {@link AvailabilityResponse} for the identifiers given.
+     */
+    @RateLimiter(key = RedisKeyConstants.AVAILABILITY + ":#{#clientIp}", property = "rate-limit.availability-checks")
+    @GetMapping(Endpoint.AVAILABILITY)
+    public Mono<AvailabilityResponse> checkAvailability(@RequestParam(required = false) String email,
+                                                        @RequestParam(required = false) String username) {
+        if (email != null) {
+            Validators.assertValidEmail(email, "checkAvailability");
+        }
+        return authService.checkAvailability(email, username);
+    }
+
     /**
      * Handles user signin requests.
      *
@@ -40,7 +61,8 @@ public class AuthController {
      * @param signinRequest {@link SigninRequest} containing email and password.
      * @return 200 OK with {@link TokenPair} containing tokens if authentication succeeds.
      */
-    @RateLimiter(key = RedisKeyConstants.SIGNIN + ":#{#signinRequest.email}", property = "rate-limit.login-attempts")
+    @RateLimiter(key = RedisKeyConstants.SIGNIN + ":#{#signinRequest.email}", property = "rate-limit.login-attempts",
+            algorithm = RateLimitAlgorithm.SLIDING_LOG)
     @PostMapping(Endpoint.SIGNIN)
     public Mono<TokenPair> signin(@Valid @RequestBody SigninRequest signinRequest) {
         return authService.signin(signinRequest);
@@ -51,12 +73,12 @@ public class AuthController {
      *
      * <p>Accepts a JSON payload with email and OTP code,
      * verifies the OTP, marks the user's email as verified,
-     * and generates session tokens.
+     * and generates session tokens. Failed attempts are counted against the OTP itself, in the same Redis call that
+     * checks it, and the code is burned after {@code otp-max-attempts} wrong codes.
      *
      * @param request {@link OtpVerificationRequest} containing email and OTP code.
      * @return 200 OK with {@link TokenPair} containing access and refresh tokens upon successful verification.
      */
-    @RateLimiter(key = RedisKeyConstants.OTP_VERIFY + ":#{#request.email}", property = "rate-limit.otp-verify-attempts")
     @PostMapping(Endpoint.VERIFY_OTP)
     public Mono<TokenPair> verifyOtp(@Valid @RequestBody OtpVerificationRequest request) {
         return authService.verifyOtp(request.getEmail(), request.getCode());
@@ -107,6 +129,21 @@ public class AuthController {
         return authService.logout(tokenPair);
     }
 
+    /**
+     * Logs out the user from every device.
+     *
+     * <p>Accepts the token pair of any live session of the user; all of the user's sessions,
+     * this one included, stop being accepted.
+     *
+     * @param tokenPair the {@link TokenPair} of one of the user's sessions.
+     * @return a {@link Mono<Void>} indicating completion of the logout process.
+     */
+    @RateLimiter(key = RedisKeyConstants.REFRESH_TOKEN + ":#{#tokenPair.refreshToken}", property = "rate-limit.refresh-attempts")
+    @PostMapping(Endpoint.LOGOUT_ALL)
+    public Mono<Void> logoutAll(@Valid @RequestBody TokenPair tokenPair) {
+        return authService.logoutAll(tokenPair);
+    }
+
     /**
      * Handles password reset requests after OTP verification.
      *
@@ -117,7 +154,8 @@ public class AuthController {
      * @param request the {@link ForgotPasswordRequest} containing the email, OTP, and new password.
      * @return a {@link Mono} emitting a new {@link TokenPair} upon successful password reset.
      */
-    @RateLimiter(key = RedisKeyConstants.FORGOT_PASSWORD + "forgot-password:#{#request.email}", property = "rate-limit.forgot-password-attempts")
+    @RateLimiter(key = RedisKeyConstants.FORGOT_PASSWORD + "forgot-password:#{#request.email}", property = "rate-limit.forgot-password-attempts",
+            algorithm = RateLimitAlgorithm.SLIDING_LOG)
     @PostMapping(Endpoint.FORGOT_PASSWORD)
     public Mono<TokenPair> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
         return authService.forgotPassword(request);
@@ -0,0 +1,16 @@
+package com.nefarious.edu_share.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This class represents whether an email and/or username can still be used to sign up. Unqueried fields are omitted */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+    private Boolean emailAvailable;
+    private Boolean usernameAvailable;
+}
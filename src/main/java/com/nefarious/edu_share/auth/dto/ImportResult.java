@@ -0,0 +1,23 @@
+package com.nefarious.edu_share.auth.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.nefarious.edu_share.auth.util.enums.ImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/** This class represents the outcome of one imported row. userId is set for CREATED rows, message for failed ones */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+    /** 1-based line of the row in the uploaded body */
+    private long line;
+    private String email;
+    private ImportStatus status;
+    private UUID userId;
+    private String message;
+}
@@ -0,0 +1,121 @@
+package com.nefarious.edu_share.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded in-process near-cache of access tokens that were already validated against Redis.
+ * <p>
+ * Entries are kept for at most {@code session-cache.ttl-seconds} and never past the token's own expiry.
+ * Evictions are broadcast on {@link RedisKeyConstants#SESSION_INVALIDATION} so every node drops its copy,
+ * not only the node that served the logout.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessTokenCache {
+    private static final String TOKEN_PREFIX = "token:";
+    private static final String USER_PREFIX  = "user:";
+
+    private final ReactiveStringRedisTemplate redis;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${session-cache.max-size}")
+    private long maxSize;
+
+    @Value("${session-cache.ttl-seconds}")
+    private long ttlSeconds;
+
+    private Cache<String, CachedSession> cache;
+    private Disposable subscription;
+
+    @PostConstruct
+    void init() {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<String, CachedSession>writing((token, session) -> {
+                    Duration untilExpiry = Duration.between(Instant.now(), session.expiresAt());
+                    if (untilExpiry.isNegative()) return Duration.ZERO;
+                    return untilExpiry.compareTo(ttl) < 0 ? untilExpiry : ttl;
+                }))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "access-token-cache");
+
+        // Messages published while we are disconnected are lost, so start from an empty cache on every (re)subscribe
+        subscription = redis.listenToChannel(RedisKeyConstants.SESSION_INVALIDATION)
+                .doOnSubscribe(s -> cache.invalidateAll())
+                .doOnNext(message -> evictLocally(message.getMessage()))
+                .doOnError(e -> log.warn("Session invalidation channel dropped: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /** Look up a previously validated access token; empty on miss or once the token has expired. */
+    public Optional<UUID> get(String token) {
+        CachedSession session = cache.getIfPresent(token);
+        if (session == null || !session.expiresAt().isAfter(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(session.userId());
+    }
+
+    /** Remember an access token that was just validated against Redis. */
+    public void put(String token, UUID userId, Instant expiresAt) {
+        cache.put(token, new CachedSession(userId, expiresAt));
+    }
+
+    /** Drop a single token on this node and broadcast the eviction to the others. */
+    public Mono<Void> evictToken(String token) {
+        return evictEverywhere(TOKEN_PREFIX + token);
+    }
+
+    /** Drop every cached token of a user on this node and broadcast the eviction to the others. */
+    public Mono<Void> evictUser(UUID userId) {
+        return evictEverywhere(USER_PREFIX + userId);
+    }
+
+    private Mono<Void> evictEverywhere(String message) {
+        return Mono.fromRunnable(() -> evictLocally(message))
+                .then(redis.convertAndSend(RedisKeyConstants.SESSION_INVALIDATION, message))
+                .then();
+    }
+
+    private void evictLocally(String message) {
+        if (message.startsWith(TOKEN_PREFIX)) {
+            cache.invalidate(message.substring(TOKEN_PREFIX.length()));
+        } else if (message.startsWith(USER_PREFIX)) {
+            UUID userId = UUID.fromString(message.substring(USER_PREFIX.length()));
+            cache.asMap().values().removeIf(session -> session.userId().equals(userId));
+        }
+    }
+
+    private record CachedSession(UUID userId, Instant expiresAt) {}
+}
@@ -4,6 +4,8 @@ import com.nefarious.edu_share.auth.service.SessionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
@@ -11,14 +13,22 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Custom authentication filter that processes Bearer tokens in the Authorization header.
- * Validates the token using the {@link SessionService} and sets the authentication context if valid.
+ * Verifies the JWT once with {@link JwtProvider}, checks the session using the {@link SessionService}
+ * and sets the authentication context if valid. Users listed in {@code admin.user-ids} are granted ROLE_ADMIN.
  */
 @RequiredArgsConstructor
 public class AuthTokenBearer implements WebFilter {
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
     private final SessionService sessionService;
+    private final JwtProvider jwtProvider;
+    private final Set<UUID> adminIds;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
@@ -30,10 +40,15 @@ public class AuthTokenBearer implements WebFilter {
         }
 
         String token = header.substring(7);
-        return sessionService.validateAccessToken(token)
+        Optional<VerifiedToken> verified = jwtProvider.verify(token);
+        if (verified.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        return sessionService.validateAccessToken(token, verified.get())
                 .flatMap(userId -> {
                     UsernamePasswordAuthenticationToken auth =
-                            new UsernamePasswordAuthenticationToken(userId, token, List.of());
+                            new UsernamePasswordAuthenticationToken(userId, token,
+                                    adminIds.contains(userId) ? ADMIN_AUTHORITIES : List.of());
                     return chain.filter(exchange)
                             .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
                 })
@@ -0,0 +1,52 @@
+package com.nefarious.edu_share.auth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.UUID;
+
+/**
+ * Picks the BCrypt cost for this node by timing real hashes at startup.
+ * <p>
+ * Each cost step doubles the work, so costs are tried from {@code minCost} upwards and the highest one whose
+ * hash still finishes within {@code targetMs} wins. The result never leaves {@code [minCost, maxCost]}.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+    private BCryptCostCalibrator() {}
+
+    /**
+     * Time hashes from {@code minCost} upwards and return the highest cost that fits in {@code targetMs}.
+     * @param minCost  lowest cost returned, even if it overshoots the target
+     * @param maxCost  highest cost returned
+     * @param targetMs target time for a single hash
+     * @return the chosen BCrypt cost
+     */
+    public static int calibrate(int minCost, int maxCost, long targetMs) {
+        String sample = UUID.randomUUID().toString();
+        // Warm up so class loading and JIT do not count against the first cost
+        new BCryptPasswordEncoder(minCost).encode(sample);
+
+        int chosen = minCost;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            long elapsedMs = timeHash(cost, sample);
+            if (elapsedMs > targetMs) {
+                break;
+            }
+            chosen = cost;
+            // The next step takes about twice as long, stop before running a hash that is sure to overshoot
+            if (elapsedMs * 2 > targetMs) {
+                break;
+            }
+        }
+        log.info("BCrypt cost calibrated to {} (target {} ms, allowed {}-{})", chosen, targetMs, minCost, maxCost);
+        return chosen;
+    }
+
+    private static long timeHash(int cost, String sample) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(sample);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
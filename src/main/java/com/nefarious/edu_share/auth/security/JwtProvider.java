@@ -5,16 +5,24 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nefarious.edu_share.auth.util.enums.TokenType;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
 public class JwtProvider {
+    private static final String GENERATION_CLAIM = "gen";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -24,48 +32,73 @@ public class JwtProvider {
     @Value("${jwt.refresh-expiration-ms}")
     private long refreshExpirationMs;
 
+    @Value("${jwt.verified-cache-size}")
+    private long verifiedCacheSize;
+
     private Algorithm algorithm;
     private JWTVerifier verifier;
+    private Cache<String, VerifiedToken> verifiedTokens;
 
     @PostConstruct
     public void init() {
         algorithm = Algorithm.HMAC256(jwtSecret.getBytes());
         verifier = JWT.require(algorithm).build();
+        // Tokens are immutable, so a verified signature stays valid until exp
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.<String, VerifiedToken>writing((token, verified) -> {
+                    Duration untilExpiry = Duration.between(Instant.now(), verified.expiresAt());
+                    return untilExpiry.isNegative() ? Duration.ZERO : untilExpiry;
+                }))
+                .build();
     }
 
-    /** Generate a signed JWT with {@link TokenType} and subject: user_id */
-    public String generateToken(UUID userId, TokenType token) {
+    /**
+     * Generate a signed JWT with {@link TokenType}, subject: user_id, a random jti used for revocation
+     * and the user's session generation, which invalidates the token once the generation moves past it.
+     */
+    public String generateToken(UUID userId, TokenType token, long generation) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + (token == TokenType.ACCESS ? accessExpirationMs : refreshExpirationMs));
 
         return JWT.create()
+                .withJWTId(UUID.randomUUID().toString())
                 .withSubject(userId.toString())
                 .withIssuedAt(now)
                 .withExpiresAt(exp)
                 .withClaim("type", token.getValue())
+                .withClaim(GENERATION_CLAIM, generation)
                 .sign(algorithm);
     }
 
-    /** Validate the token (signature + exp). Returns true if valid */
-    public boolean validateToken(String token) {
-        try {
-            verifier.verify(token);
-            return true;
-        } catch (JWTVerificationException ex) {
-            return false;
+    /**
+     * Verify the token (signature + exp) once and return its claims.
+     * Recently verified tokens are served from a bounded cache without recomputing the HMAC.
+     *
+     * @param token raw JWT
+     * @return {@link VerifiedToken} if valid, empty otherwise
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        VerifiedToken verified = verifiedTokens.get(token, this::decode);
+        if (verified == null || verified.isExpired()) {
+            return Optional.empty();
         }
+        return Optional.of(verified);
     }
 
-    /** Extract the userId from token’s subject claim */
-    public UUID getUserIdFromJwt(String token) {
-        DecodedJWT decoded = verifier.verify(token);
-        String subject = decoded.getSubject();
-        return UUID.fromString(subject);
-    }
-
-    /** Check that this *is* a refresh token */
-    public boolean isRefreshToken(String token) {
-        DecodedJWT decoded = verifier.verify(token);
-        return "refresh".equals(decoded.getClaim("type").asString());
+    /** Uncached verification; returns null (not cached) when the token is invalid */
+    VerifiedToken decode(String token) {
+        try {
+            DecodedJWT decoded = verifier.verify(token);
+            TokenType type = TokenType.fromValue(decoded.getClaim("type").asString());
+            if (type == null || decoded.getSubject() == null || decoded.getExpiresAtAsInstant() == null) {
+                return null;
+            }
+            Long generation = decoded.getClaim(GENERATION_CLAIM).asLong();
+            return new VerifiedToken(decoded.getId(), UUID.fromString(decoded.getSubject()), type,
+                    decoded.getExpiresAtAsInstant(), generation == null ? 0L : generation);
+        } catch (JWTVerificationException | IllegalArgumentException ex) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,178 @@
+package com.nefarious.edu_share.auth.security;
+
+import com.nefarious.edu_share.shared.utils.BloomFilter;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory deny filter of revoked access-token IDs (jti), used by the stateless access-token mode.
+ * <p>
+ * Revocations are recorded in the {@link RedisKeyConstants#REVOKED_TOKENS} sorted set, scored by the token's expiry,
+ * and in {@link RedisKeyConstants#REVOKED_TOKENS_RECENT}, scored by revocation time. Every node pulls recent entries
+ * into a local {@link BloomFilter} each {@code session.revocation.sync-interval-ms}, which bounds how long a token
+ * revoked on another node can still be accepted. Every {@code session.revocation.rebuild-interval-ms} the filter is
+ * rebuilt from the live entries, after pruning revocations of expired tokens and recent entries older than one
+ * rebuild interval, so neither set outgrows the tokens that can still be presented.
+ * <p>
+ * Nothing is written to Redis unless {@code session.stateless-access} is on: otherwise the session keys themselves
+ * are checked on every request and the sets would only grow.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevocationFilter {
+    private final ReactiveStringRedisTemplate redis;
+
+    @Value("${session.stateless-access}")
+    private boolean statelessAccess;
+
+    @Value("${session.revocation.sync-interval-ms}")
+    private long syncIntervalMs;
+
+    @Value("${session.revocation.rebuild-interval-ms}")
+    private long rebuildIntervalMs;
+
+    @Value("${session.revocation.expected-revocations}")
+    private long expectedRevocations;
+
+    @Value("${session.revocation.false-positive-rate}")
+    private double falsePositiveRate;
+
+    /** Revocations made on this node, re-applied after a rebuild until they are surely visible in Redis */
+    private final Queue<LocalRevocation> recentLocal = new ConcurrentLinkedQueue<>();
+
+    private volatile BloomFilter filter;
+    private volatile long lastSyncMs;
+    private volatile long lastRebuildMs;
+    private Disposable sync;
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        if (!statelessAccess) {
+            return;
+        }
+        sync = Flux.interval(Duration.ZERO, Duration.ofMillis(syncIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> sync()
+                        .onErrorResume(e -> {
+                            log.warn("Revocation filter sync failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sync != null) {
+            sync.dispose();
+        }
+    }
+
+    /** Whether access tokens are validated from signature, expiry and this filter instead of a Redis lookup */
+    public boolean isStatelessAccess() {
+        return statelessAccess;
+    }
+
+    /** Returns false if the token ID was definitely not revoked, true if it may have been. */
+    public boolean mightBeRevoked(String tokenId) {
+        return filter.mightContain(tokenId);
+    }
+
+    /** Record revoked tokens locally and, in stateless mode, in Redis for the other nodes. Tokens without a jti are skipped. */
+    public Mono<Void> revoke(Collection<VerifiedToken> tokens) {
+        List<VerifiedToken> revocable = tokens.stream().filter(token -> token.tokenId() != null).toList();
+        if (revocable.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            List<ZSetOperations.TypedTuple<String>> byExpiry = new ArrayList<>(revocable.size());
+            List<ZSetOperations.TypedTuple<String>> byRevocation = new ArrayList<>(revocable.size());
+            for (VerifiedToken token : revocable) {
+                markRevoked(token.tokenId(), now);
+                byExpiry.add(new DefaultTypedTuple<>(token.tokenId(), (double) token.expiresAt().toEpochMilli()));
+                byRevocation.add(new DefaultTypedTuple<>(token.tokenId(), (double) now));
+            }
+            if (!statelessAccess) {
+                return Mono.empty();
+            }
+            return Mono.when(
+                    redis.opsForZSet().addAll(RedisKeyConstants.REVOKED_TOKENS, byExpiry),
+                    redis.opsForZSet().addAll(RedisKeyConstants.REVOKED_TOKENS_RECENT, byRevocation));
+        });
+    }
+
+    /** Record a revocation on this node only, for callers that already wrote it to Redis (e.g. from a script). */
+    public void markRevoked(String tokenId) {
+        markRevoked(tokenId, System.currentTimeMillis());
+    }
+
+    private void markRevoked(String tokenId, long revokedAtMs) {
+        filter.put(tokenId);
+        if (statelessAccess) {
+            recentLocal.add(new LocalRevocation(tokenId, revokedAtMs));
+        }
+    }
+
+    /** Pull revocations made since the last sync, or rebuild the whole filter when it is due. */
+    private Mono<Void> sync() {
+        long now = System.currentTimeMillis();
+        // Recent entries are only kept for one rebuild interval, so a node that fell further behind rebuilds
+        boolean rebuild = now - lastRebuildMs >= rebuildIntervalMs || now - lastSyncMs >= rebuildIntervalMs;
+
+        Mono<Void> prune = rebuild
+                ? Mono.when(
+                        redis.opsForZSet().removeRangeByScore(RedisKeyConstants.REVOKED_TOKENS,
+                                Range.leftUnbounded(Range.Bound.exclusive((double) now))),
+                        redis.opsForZSet().removeRangeByScore(RedisKeyConstants.REVOKED_TOKENS_RECENT,
+                                Range.leftUnbounded(Range.Bound.exclusive((double) (now - rebuildIntervalMs)))))
+                : Mono.empty();
+        // Rebuild: every revoked token not yet expired. Sync: revocations since the last one, overlapping one
+        // interval so revocations stamped by a node with a slightly late clock are not skipped
+        Flux<String> tokenIdsToLoad = rebuild
+                ? redis.opsForZSet().rangeByScore(RedisKeyConstants.REVOKED_TOKENS,
+                        Range.rightUnbounded(Range.Bound.inclusive((double) now)))
+                : redis.opsForZSet().rangeByScore(RedisKeyConstants.REVOKED_TOKENS_RECENT,
+                        Range.rightUnbounded(Range.Bound.inclusive((double) (lastSyncMs - syncIntervalMs))));
+
+        return prune
+                .thenMany(tokenIdsToLoad)
+                .collectList()
+                .doOnNext(tokenIds -> {
+                    if (rebuild) {
+                        BloomFilter fresh = new BloomFilter(Math.max(expectedRevocations, 2L * tokenIds.size()), falsePositiveRate);
+                        tokenIds.forEach(fresh::put);
+                        recentLocal.removeIf(revocation -> revocation.revokedAtMs() < now - 2 * syncIntervalMs);
+                        recentLocal.forEach(revocation -> fresh.put(revocation.tokenId()));
+                        filter = fresh;
+                        lastRebuildMs = now;
+                    } else {
+                        tokenIds.forEach(filter::put);
+                    }
+                    lastSyncMs = now;
+                })
+                .then();
+    }
+
+    private record LocalRevocation(String tokenId, long revokedAtMs) {}
+}
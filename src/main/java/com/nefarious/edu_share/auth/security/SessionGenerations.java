@@ -0,0 +1,133 @@
+package com.nefarious.edu_share.auth.security;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Per-user session generation (epoch), embedded in every JWT as the "gen" claim.
+ * <p>
+ * A token is only valid while its generation is at least the user's current one, so "log out everywhere"
+ * is a single INCR of {@link RedisKeyConstants#SESSION_GENERATION}, however many sessions exist; their keys are deleted
+ * by the user's next sign-in (see create-session.lua) or expire.
+ * The counter has no TTL: if it expired and restarted, tokens from a higher generation would be accepted again.
+ * <p>
+ * Nodes keep recent generations in memory for the stateless access path. Increments are broadcast on
+ * {@link RedisKeyConstants#SESSION_GENERATION_CHANGED}, which keeps the cache correct. As a bound on how stale a node
+ * that missed a broadcast can be, entries read after {@code session.generation.cache-refresh-seconds} are reloaded in
+ * the background; the read itself is served from memory and never waits on Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionGenerations {
+    private final ReactiveStringRedisTemplate redis;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${session.generation.cache-size}")
+    private long cacheSize;
+
+    @Value("${session.generation.cache-refresh-seconds}")
+    private long cacheRefreshSeconds;
+
+    @Value("${session.generation.cache-expire-seconds}")
+    private long cacheExpireSeconds;
+
+    private LoadingCache<UUID, Long> cache;
+    private Disposable subscription;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .refreshAfterWrite(Duration.ofSeconds(cacheRefreshSeconds))
+                .expireAfterWrite(Duration.ofSeconds(cacheExpireSeconds))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Long load(UUID userId) {
+                        // Entries are only put by observe(); a miss goes through current() without blocking
+                        throw new UnsupportedOperationException("Session generations are not loaded on read");
+                    }
+
+                    @Override
+                    public CompletableFuture<Long> asyncReload(UUID userId, Long oldValue, Executor executor) {
+                        return redis.opsForValue().get(key(userId))
+                                .map(Long::parseLong)
+                                .defaultIfEmpty(0L)
+                                .map(generation -> Math.max(generation, oldValue))
+                                .toFuture();
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "session-generation-cache");
+
+        // Messages published while we are disconnected are lost, so start from an empty cache on every (re)subscribe
+        subscription = redis.listenToChannel(RedisKeyConstants.SESSION_GENERATION_CHANGED)
+                .doOnSubscribe(s -> cache.invalidateAll())
+                .doOnNext(message -> {
+                    String[] parts = message.getMessage().split(" ");
+                    observe(UUID.fromString(parts[0]), Long.parseLong(parts[1]));
+                })
+                .doOnError(e -> log.warn("Session generation channel dropped: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /** Redis key of the user's generation counter */
+    public static String key(UUID userId) {
+        return RedisKeyConstants.SESSION_GENERATION + ":" + userId;
+    }
+
+    /** Read the current generation from Redis; use it when issuing tokens. */
+    public Mono<Long> current(UUID userId) {
+        return redis.opsForValue().get(key(userId))
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .doOnNext(generation -> observe(userId, generation));
+    }
+
+    /** The generation from this node's cache, read from Redis on a miss; a stale entry is refreshed in the background. */
+    public Mono<Long> cached(UUID userId) {
+        Long generation = cache.getIfPresent(userId);
+        return generation != null ? Mono.just(generation) : current(userId);
+    }
+
+    /** Record a generation read elsewhere (e.g. next to a session key); an older value never replaces a newer one. */
+    public void observe(UUID userId, long generation) {
+        cache.asMap().merge(userId, generation, Math::max);
+    }
+
+    /** Invalidate every token of the user issued so far and tell the other nodes. */
+    public Mono<Long> increment(UUID userId) {
+        return redis.opsForValue().increment(key(userId))
+                .doOnNext(generation -> observe(userId, generation))
+                .flatMap(generation -> redis
+                        .convertAndSend(RedisKeyConstants.SESSION_GENERATION_CHANGED, userId + " " + generation)
+                        .thenReturn(generation));
+    }
+}
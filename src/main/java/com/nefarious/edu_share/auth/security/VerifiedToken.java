@@ -0,0 +1,22 @@
+package com.nefarious.edu_share.auth.security;
+
+import com.nefarious.edu_share.auth.util.enums.TokenType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Claims of a JWT whose signature and expiry were checked once by {@link JwtProvider#verify(String)}.
+ *
+ * @param tokenId   jti claim, null for tokens issued before token IDs were added
+ * @param userId    subject of the token
+ * @param type      {@link TokenType} from the "type" claim
+ * @param expiresAt value of the exp claim
+ * @param generation session generation of the user when the token was issued, 0 for tokens issued before it existed
+ */
+public record VerifiedToken(String tokenId, UUID userId, TokenType type, Instant expiresAt, long generation) {
+    /** True once the exp claim has passed */
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -2,12 +2,17 @@ package com.nefarious.edu_share.auth.service;
 
 import com.nefarious.edu_share.auth.dto.*;
 import com.nefarious.edu_share.auth.security.JwtProvider;
+import com.nefarious.edu_share.auth.util.AuthFlowMetrics;
+import com.nefarious.edu_share.auth.util.enums.AuthFlow;
+import com.nefarious.edu_share.auth.util.enums.AuthStage;
 import com.nefarious.edu_share.auth.util.enums.AuthError;
 import com.nefarious.edu_share.auth.util.enums.TokenType;
+import com.nefarious.edu_share.shared.exceptions.BaseError;
 import com.nefarious.edu_share.shared.exceptions.BusinessException;
 import com.nefarious.edu_share.shared.interfaces.EmailService;
 import com.nefarious.edu_share.shared.service.RateLimiterService;
 import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import com.nefarious.edu_share.user.service.AvailabilityService;
 import com.nefarious.edu_share.user.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -27,17 +33,20 @@ public class AuthService {
     private final JwtProvider jwtProvider;
     private final SessionService sessionService;
     private final RateLimiterService rateLimiterService;
+    private final AvailabilityService availabilityService;
+    private final AuthFlowMetrics authFlowMetrics;
 
     /**
      * Handles the user signup process.
      * <p>
      * This method creates a new user, generates an OTP, and sends it to the user's email.
+     * Other services (e.g. the Neo4j graph) learn about the user from the outbox event written with it.
      * If email sending fails, it logs the error without interrupting the signup process.
+     * Each stage is timed by {@link AuthFlowMetrics}, as in every flow below.
      *
      * @param request {@link SignupRequest} The signup request containing user information.
      */
     public Mono<Void> signup(@Valid SignupRequest request) {
-        // TODO: Add A new Neo4j pub sub to alert new user and add node
         // TODO:Also think about device specific OTP, if we send the otp as a response we send a temp code to the browser as well.
         // When user responds they respond with the otp and the browser code attached, so i know that this request came from the same guy
         return userService.createUser(request)
@@ -47,7 +56,32 @@ public class AuthService {
                         log.warn("OTP email failed for {}: {}", user.getEmail(), e.getMessage());
                         return Mono.empty();
                     })
-            );
+            )
+            .transform(authFlowMetrics.flow(AuthFlow.SIGNUP));
+    }
+
+    /**
+     * Checks whether an email and/or username can still be used to sign up.
+     *
+     * <p>Backed by {@link AvailabilityService}, so most answers never reach the database.
+     * At least one of the two must be given; the other is left out of the response.
+     *
+     * @param email    the email to check, or null
+     * @param username the username to check, or null
+     * @return {@link AvailabilityResponse} with one flag per queried identifier.
+     */
+    public Mono<AvailabilityResponse> checkAvailability(String email, String username) {
+        if (email == null && username == null) {
+            return Mono.error(new BusinessException(BaseError.EMPTY_MESSAGE));
+        }
+        Mono<Optional<Boolean>> emailAvailable = email == null
+                ? Mono.just(Optional.empty())
+                : availabilityService.isEmailAvailable(email).map(Optional::of);
+        Mono<Optional<Boolean>> usernameAvailable = username == null
+                ? Mono.just(Optional.empty())
+                : availabilityService.isUsernameAvailable(username).map(Optional::of);
+        return Mono.zip(emailAvailable, usernameAvailable)
+                .map(tuple -> new AvailabilityResponse(tuple.getT1().orElse(null), tuple.getT2().orElse(null)));
     }
 
     /**
@@ -64,8 +98,10 @@ public class AuthService {
                 .flatMap(user -> createSession(user.getId()))
                 .flatMap(tokenPair ->
                         rateLimiterService.reset(RedisKeyConstants.SIGNIN + ":" + request.getEmail())
+                                .transform(authFlowMetrics.stage(AuthStage.RATE_LIMIT_RESET))
                                 .thenReturn(tokenPair)
-                );
+                )
+                .transform(authFlowMetrics.flow(AuthFlow.SIGNIN));
     }
 
     /**
@@ -78,7 +114,9 @@ public class AuthService {
      */
     public Mono<Void> sendOtp(String email) {
         return otpService.getOtp(email)
-            .flatMap(code -> emailService.sendOtpEmail(email, code));
+            .transform(authFlowMetrics.stage(AuthStage.GENERATE_OTP))
+            .flatMap(code -> emailService.sendOtpEmail(email, code)
+                .transform(authFlowMetrics.stage(AuthStage.SEND_EMAIL)));
     }
 
     /**
@@ -94,38 +132,42 @@ public class AuthService {
      *         or an error if OTP validation fails.
      */
     public Mono<TokenPair> verifyOtp(String email, String code) {
-        return otpService.validateOtp(email, code)
-                .filter(Boolean::booleanValue)
-                .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_OTP)))
-                .flatMap(valid -> userService.markEmailVerified(email))
-                .flatMap(user -> createSession(user.getId()))
+        return validateOtp(email, code)
+                .flatMap(valid -> userService.markEmailVerified(email)
+                        .transform(authFlowMetrics.stage(AuthStage.MARK_VERIFIED)))
+                .flatMap(this::createSession)
                 .flatMap(tokenPair ->
                         rateLimiterService.reset(RedisKeyConstants.OTP + ":" + email)
+                                .transform(authFlowMetrics.stage(AuthStage.RATE_LIMIT_RESET))
                                 .thenReturn(tokenPair)
-                );
+                )
+                .transform(authFlowMetrics.flow(AuthFlow.VERIFY_OTP));
     }
 
     /**
-     * Refreshes the user's session by validating the refresh token and revoking the old session.
+     * Refreshes the user's session by atomically rotating the token pair.
      *
-     * <p>This method first validates the refresh token to retrieve the user's ID.
-     * It then revokes both the existing refresh and access tokens, and finally generates
-     * a new token pair for the same user.
+     * <p>This method verifies the refresh token's JWT to retrieve the user's ID, issues a new token pair,
+     * and swaps it in with a single scripted Redis call that also revokes the old refresh and access tokens.
+     * The swap fails as a whole if the refresh token is no longer live (e.g. already rotated) or its session
+     * generation is behind. The new pair keeps the refresh token's generation, so no extra read is needed.
      *
      * @param tokenPair the current {@link TokenPair} containing access and refresh tokens.
      * @return a {@link Mono} emitting a new {@link TokenPair} if refresh is successful,
-     *         or an error if validation or revocation fails.
+     *         or an error if validation or rotation fails.
      */
     public Mono<TokenPair> refreshSession(TokenPair tokenPair) {
-        return sessionService.validateRefreshToken(tokenPair.getRefreshToken())
+        return Mono.defer(() -> Mono.justOrEmpty(jwtProvider.verify(tokenPair.getRefreshToken())))
+                .filter(verified -> verified.type() == TokenType.REFRESH)
                 .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS)))
-                .flatMap(userId ->
-                        sessionService.revokeSession(tokenPair.getRefreshToken(),TokenType.REFRESH)
-                                .then(sessionService.revokeSession(tokenPair.getAccessToken(),TokenType.ACCESS)
-                                        .thenReturn(userId)
-                                )
-                )
-                .flatMap(this::createSession);
+                .transform(authFlowMetrics.stage(AuthStage.VERIFY_TOKEN))
+                .flatMap(verified -> signTokenPair(verified.userId(), verified.generation())
+                        .flatMap(rotated -> sessionService.rotateSession(tokenPair, rotated, verified.userId(), verified.generation())
+                                .filter(Boolean::booleanValue)
+                                .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS)))
+                                .transform(authFlowMetrics.stage(AuthStage.ROTATE_SESSION))
+                                .thenReturn(rotated)))
+                .transform(authFlowMetrics.flow(AuthFlow.REFRESH_SESSION));
     }
 
     /**
@@ -139,7 +181,28 @@ public class AuthService {
      */
     public Mono<Void> logout(TokenPair tokenPair) {
         return sessionService.revokeSession(tokenPair.getAccessToken(), TokenType.ACCESS)
-                .then(sessionService.revokeSession(tokenPair.getRefreshToken(), TokenType.REFRESH));
+                .then(sessionService.revokeSession(tokenPair.getRefreshToken(), TokenType.REFRESH))
+                .transform(authFlowMetrics.stage(AuthStage.REVOKE_SESSION))
+                .transform(authFlowMetrics.flow(AuthFlow.LOGOUT));
+    }
+
+    /**
+     * Logs out the user from every device by invalidating all of their sessions.
+     *
+     * <p>The refresh token proves the caller holds a live session. Invalidation bumps the user's session generation,
+     * a single Redis write however many sessions exist.
+     *
+     * @param tokenPair the {@link TokenPair} of one of the user's sessions.
+     * @return a {@link Mono<Void>} completing once every session is invalid,
+     *         or an error if the refresh token is not live.
+     */
+    public Mono<Void> logoutAll(TokenPair tokenPair) {
+        return sessionService.validateRefreshToken(tokenPair.getRefreshToken())
+                .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS)))
+                .transform(authFlowMetrics.stage(AuthStage.VERIFY_TOKEN))
+                .flatMap(userId -> sessionService.invalidateAllSessionsForUser(userId)
+                        .transform(authFlowMetrics.stage(AuthStage.INVALIDATE_SESSIONS)))
+                .transform(authFlowMetrics.flow(AuthFlow.LOGOUT_ALL));
     }
 
     /**
@@ -155,33 +218,53 @@ public class AuthService {
      *         or an error if OTP validation fails or password update is unsuccessful.
      */
     public Mono<TokenPair> forgotPassword(ForgotPasswordRequest request) {
-        return otpService.validateOtp(request.getEmail(), request.getCode())
-                .filter(Boolean::booleanValue)
-                .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_OTP)))
+        return validateOtp(request.getEmail(), request.getCode())
                 .flatMap(valid -> userService.updatePassword(request.getEmail(), request.getNewPassword()))
-                .flatMap(user -> sessionService.invalidateAllSessionsForUser(user.getId())
-                        .thenReturn(user)
+                .flatMap(userId -> sessionService.invalidateAllSessionsForUser(userId)
+                        .transform(authFlowMetrics.stage(AuthStage.INVALIDATE_SESSIONS))
+                        .thenReturn(userId)
                 )
-                .flatMap(user -> createSession(user.getId()))
+                .flatMap(this::createSession)
                 .flatMap(tokenPair ->
                         rateLimiterService.reset(RedisKeyConstants.FORGOT_PASSWORD + ":" + request.getEmail())
+                                .transform(authFlowMetrics.stage(AuthStage.RATE_LIMIT_RESET))
                                 .thenReturn(tokenPair)
-                );
+                )
+                .transform(authFlowMetrics.flow(AuthFlow.FORGOT_PASSWORD));
     }
 
     /**
-     * Generate a token using {@link JwtProvider} and create a session using {@link SessionService} (persist in Redis)
+     * Generate a token pair using {@link JwtProvider} and create a session using {@link SessionService} (persist in Redis)
      * @param userId userId of user to create token against
      * @return sessionResponse {@link TokenPair} type object
      */
     private Mono<TokenPair> createSession(UUID userId) {
-        String accessToken  = jwtProvider.generateToken(userId, TokenType.ACCESS);
-        String refreshToken = jwtProvider.generateToken(userId, TokenType.REFRESH);
+        return sessionService.currentGeneration(userId)
+                .transform(authFlowMetrics.stage(AuthStage.READ_GENERATION))
+                .flatMap(generation -> signTokenPair(userId, generation)
+                        .flatMap(tokenPair -> sessionService.createSessionPair(tokenPair, userId, generation)
+                                .transform(authFlowMetrics.stage(AuthStage.STORE_SESSION))
+                                .thenReturn(tokenPair)));
+    }
 
-        return Mono.when(
-                        sessionService.createSession(accessToken, userId, TokenType.ACCESS),
-                        sessionService.createSession(refreshToken, userId, TokenType.REFRESH)
-                )
-                .thenReturn(new TokenPair(accessToken, refreshToken));
+    /** Check the OTP, failing with {@link AuthError#INVALID_OTP} when it does not match */
+    private Mono<Boolean> validateOtp(String email, String code) {
+        return otpService.validateOtp(email, code)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_OTP)))
+                .transform(authFlowMetrics.stage(AuthStage.VALIDATE_OTP));
+    }
+
+    /** {@link #generateTokenPair(UUID, long)} as a timed stage, signed on subscription */
+    private Mono<TokenPair> signTokenPair(UUID userId, long generation) {
+        return Mono.fromSupplier(() -> generateTokenPair(userId, generation))
+                .transform(authFlowMetrics.stage(AuthStage.SIGN_TOKENS));
+    }
+
+    /** Sign a fresh access/refresh pair for the user and session generation without persisting it */
+    private TokenPair generateTokenPair(UUID userId, long generation) {
+        String accessToken  = jwtProvider.generateToken(userId, TokenType.ACCESS, generation);
+        String refreshToken = jwtProvider.generateToken(userId, TokenType.REFRESH, generation);
+        return new TokenPair(accessToken, refreshToken);
     }
 }
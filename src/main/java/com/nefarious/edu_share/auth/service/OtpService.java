@@ -1,68 +1,187 @@
 package com.nefarious.edu_share.auth.service;
 
+import com.nefarious.edu_share.auth.util.enums.OtpMode;
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
 import com.nefarious.edu_share.shared.utils.Constants;
 import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.time.Duration;
+import java.util.List;
 
-/** Service for generating, storing, and validating one-time passwords (OTPs) in Redis */
+/**
+ * Service for generating, storing, and validating one-time passwords (OTPs) in Redis.
+ * <p>
+ * In {@link OtpMode#STATELESS} mode no code is stored: the OTP is derived from
+ * HMAC(otp-secret, email, issue counter, time step). Each send increments the per-email issue counter in one script
+ * call, so a resend always emails a fresh code and invalidates the previous one. A check reads the counter, compares
+ * the code locally and reports the outcome to otp-consume.lua, which records the consumed issue against replays and
+ * counts failed attempts towards {@code otp-max-attempts}, as the stored mode does.
+ */
 @Service
 @RequiredArgsConstructor
 public class OtpService {
+    private static final RedisScript<Long> STORE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-store.lua"), Long.class);
+    /** Compare-and-delete plus attempt counting in one call; see otp-verify.lua for the return codes */
+    private static final RedisScript<Long> VERIFY_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-verify.lua"), Long.class);
+    /** Bumps the stateless issue counter and resets the failed attempts, atomically */
+    private static final RedisScript<Long> ISSUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-issue.lua"), Long.class);
+    /** Consumes a matching stateless code or counts a failed attempt; same return codes as otp-verify.lua */
+    private static final RedisScript<Long> CONSUME_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/otp-consume.lua"), Long.class);
+    private static final long VALID     = 1L;
+    private static final long EXHAUSTED = -1L;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    /** Domain-separates OTP derivation from other uses of the same secret */
+    private static final String PURPOSE = "email-otp";
+
     private final ReactiveStringRedisTemplate redis;
     private final SecureRandom random = new SecureRandom();
     private static final int OTP_LENGTH = 10;
     @Value("${otp-ttl}")
     private int otpTtl;
+    @Value("${otp-max-attempts}")
+    private int otpMaxAttempts;
+    @Value("${otp-mode}")
+    private OtpMode otpMode;
+    @Value("${otp-step-seconds}")
+    private long otpStepSeconds;
+    @Value("${otp-secret}")
+    private String otpSecret;
+
+    /** Mac is not thread-safe, so each thread gets its own keyed instance */
+    private ThreadLocal<Mac> hmac;
+    /** Number of steps a stateless code stays valid for, the current one included */
+    private long windowSteps;
+
+    @PostConstruct
+    void init() {
+        SecretKeySpec key = new SecretKeySpec(otpSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Cannot initialise " + HMAC_ALGORITHM, ex);
+            }
+        });
+        windowSteps = Math.max(1, (otpTtl + otpStepSeconds - 1) / otpStepSeconds);
+    }
 
     /**
      * Generate a 10-character alphanumeric OTP, store it in Redis
-     * under the key "otp:{email}" with a TTL, and return it.
+     * under the key "otp:{email}" as a hash {code, attempts} with a TTL, and return it.
+     * In stateless mode the code is derived from a freshly incremented issue counter and the current time step.
      *
      * @param email the identifier for this OTP (e.g. user’s email)
      * @return a Mono emitting the generated OTP string
      */
     public Mono<String> getOtp(String email) {
+        if (otpMode == OtpMode.STATELESS) {
+            // Twice the code TTL: the counter must outlive the consumed marker of any code issued under it
+            return redis.execute(ISSUE_SCRIPT, List.of(issuedKey(email), attemptsKey(email)),
+                            List.of(String.valueOf(Duration.ofSeconds(2L * otpTtl).toMillis())))
+                    .next()
+                    .map(issue -> deriveOtp(email, issue, currentStep()));
+        }
         String otp = generateOtp();
-        String key = buildKey(email);
         return redis
-                .opsForValue()
-                .set(key, otp, Duration.ofSeconds(otpTtl))
-                .thenReturn(otp);
+                .execute(STORE_SCRIPT, List.of(buildKey(email)), List.of(otp, String.valueOf(otpTtl)))
+                .then(Mono.just(otp));
     }
 
     /**
-     * Validate a submitted OTP against the stored value in Redis.
-     * If it matches, delete the key so it cannot be reused.
+     * Validate a submitted OTP against the stored value in Redis with a single atomic script call.
+     * If it matches, the key is deleted so it cannot be reused, even by a concurrent request.
+     * A wrong code counts as an attempt; after {@code otp-max-attempts} the code is burned.
+     * In stateless mode only the latest issued code is accepted and the same attempt limit applies; Redis is read
+     * for the issue counter, then called once to consume the code or count the failure.
      *
      * @param email the identifier under which the OTP was stored
      * @param submittedOtp the OTP provided by the user
-     * @return a Mono emitting true if valid (and deleted), false otherwise
+     * @return a Mono emitting true if valid (and deleted), false otherwise,
+     *         or a {@link BusinessException} with {@link BaseError#TOO_MANY_ATTEMPTS} once attempts are exhausted
      */
     public Mono<Boolean> validateOtp(String email, String submittedOtp) {
-        String key = buildKey(email);
-        return redis
-                .opsForValue()
-                .get(key)
-                .flatMap(storedOtp -> {
-                    if (storedOtp.equals(submittedOtp)) {
-                        // correct → delete the key
-                        return redis
-                                .delete(key)
-                                .thenReturn(true);
-                    }
-                    return Mono.just(false);
-                })
+        if (otpMode == OtpMode.STATELESS) {
+            return Mono.defer(() -> validateStateless(email, submittedOtp));
+        }
+        return toOutcome(redis
+                .execute(VERIFY_SCRIPT, List.of(buildKey(email)), List.of(submittedOtp, String.valueOf(otpMaxAttempts))));
+    }
+
+    /** Accept the latest issued code if derived for any step of the validity window, and only once. */
+    private Mono<Boolean> validateStateless(String email, String submittedOtp) {
+        return redis.opsForValue().get(issuedKey(email))
+                .map(Long::parseLong)
+                .flatMap(issue -> toOutcome(redis.execute(CONSUME_SCRIPT,
+                        List.of(RedisKeyConstants.OTP_USED + ":" + email, attemptsKey(email)),
+                        List.of(String.valueOf(issue), String.valueOf(otpTtl),
+                                matchesWindow(email, issue, submittedOtp) ? "1" : "0", String.valueOf(otpMaxAttempts)))))
+                // Nothing issued: there is no code to guess
+                .defaultIfEmpty(false);
+    }
+
+    /** Map an otp-verify.lua / otp-consume.lua result to the caller's outcome */
+    private Mono<Boolean> toOutcome(Flux<Long> result) {
+        return result.next()
+                .flatMap(outcome -> outcome == EXHAUSTED
+                        ? Mono.<Boolean>error(new BusinessException(BaseError.TOO_MANY_ATTEMPTS))
+                        : Mono.just(outcome == VALID))
                 .defaultIfEmpty(false);
     }
 
-    /** Generate a random alphanumeric string of length OTP_LENGTH. */
-    private String generateOtp() {
+    private boolean matchesWindow(String email, long issue, String submittedOtp) {
+        byte[] submitted = submittedOtp.getBytes(StandardCharsets.UTF_8);
+        long now = currentStep();
+        for (long step = now; step > now - windowSteps; step--) {
+            if (MessageDigest.isEqual(deriveOtp(email, issue, step).getBytes(StandardCharsets.UTF_8), submitted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Map HMAC(secret, purpose:email:issue:step) onto OTP_LENGTH alphanumeric characters. Package-private for benchmarks. */
+    String deriveOtp(String email, long issue, long step) {
+        byte[] digest = hmac.get().doFinal((PURPOSE + ":" + email + ":" + issue + ":" + step).getBytes(StandardCharsets.UTF_8));
+        long value = ByteBuffer.wrap(digest, 0, Long.BYTES).getLong();
+        int base = Constants.ALPHANUMERIC.length();
+        // 62^10 < 2^64, so 64 bits cover every code with negligible bias
+        char[] code = new char[OTP_LENGTH];
+        for (int i = 0; i < OTP_LENGTH; i++) {
+            code[i] = Constants.ALPHANUMERIC.charAt((int) Long.remainderUnsigned(value, base));
+            value = Long.divideUnsigned(value, base);
+        }
+        return new String(code);
+    }
+
+    private long currentStep() {
+        return System.currentTimeMillis() / 1000 / otpStepSeconds;
+    }
+
+    /** Generate a random alphanumeric string of length OTP_LENGTH. Package-private for benchmarks. */
+    String generateOtp() {
         var sb = new StringBuilder(OTP_LENGTH);
         for (int i = 0; i < OTP_LENGTH; i++) {
             int idx = random.nextInt(Constants.ALPHANUMERIC.length());
@@ -75,4 +194,12 @@ public class OtpService {
     private String buildKey(String email) {
         return RedisKeyConstants.OTP + ":" + email;
     }
+
+    private static String issuedKey(String email) {
+        return RedisKeyConstants.OTP_ISSUED + ":" + email;
+    }
+
+    private static String attemptsKey(String email) {
+        return RedisKeyConstants.OTP_ATTEMPTS + ":" + email;
+    }
 }
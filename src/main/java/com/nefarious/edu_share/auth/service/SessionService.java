@@ -1,15 +1,26 @@
 package com.nefarious.edu_share.auth.service;
 
+import com.nefarious.edu_share.auth.dto.TokenPair;
+import com.nefarious.edu_share.auth.security.AccessTokenCache;
 import com.nefarious.edu_share.auth.security.JwtProvider;
+import com.nefarious.edu_share.auth.security.RevocationFilter;
+import com.nefarious.edu_share.auth.security.SessionGenerations;
+import com.nefarious.edu_share.auth.security.VerifiedToken;
 import com.nefarious.edu_share.auth.util.enums.TokenType;
 import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -17,6 +28,18 @@ import java.util.UUID;
 public class SessionService {
     private final ReactiveStringRedisTemplate redis;
     private final JwtProvider jwtProvider;
+    private final AccessTokenCache accessTokenCache;
+    private final RevocationFilter revocationFilter;
+    private final SessionGenerations sessionGenerations;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CREATE_SESSION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/create-session.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SESSION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rotate-session.lua"), List.class);
+    /** Keys per UNLINK when deleting evicted sessions, which can number thousands after a legacy index migration */
+    private static final int UNLINK_BATCH_SIZE = 500;
 
     @Value("${jwt.access-expiration-ms}")
     private long accessExpirationMs;
@@ -24,66 +47,209 @@ public class SessionService {
     @Value("${jwt.refresh-expiration-ms}")
     private long refreshExpirationMs;
 
-    /** Store a session token in Redis (reactive). */
-    public Mono<Void> createSession(String token, UUID userId, TokenType tokenType) {
-        String key = tokenType.getValue() + ":" + token;     // tokenType.getValue() resolves to 'access' or 'refresh' redis keys
-        long ttl = tokenType == TokenType.ACCESS ? accessExpirationMs : refreshExpirationMs;
+    @Value("${session.max-per-user}")
+    private int maxSessionsPerUser;
 
-        Mono<Boolean> storeToken = redis
-                .opsForValue()
-                .set(key, userId.toString(), Duration.ofMillis(ttl));
+    /**
+     * Store an access/refresh token pair and index it under the user, atomically in one round trip.
+     * <p>
+     * The per-user index is a sorted set scored by session expiry: dead sessions are pruned on write and,
+     * once {@code session.max-per-user} is exceeded, the oldest sessions are evicted and revoked. Sessions indexed
+     * under an older generation, i.e. logged out everywhere since, are dropped too. The removed token keys are
+     * deleted afterwards in batches of {@value #UNLINK_BATCH_SIZE}.
+     *
+     * @param generation session generation the pair was signed with
+     */
+    public Mono<Void> createSessionPair(TokenPair pair, UUID userId, long generation) {
+        List<String> keys = List.of(
+                TokenType.ACCESS.getValue() + ":" + pair.getAccessToken(),      // tokenType.getValue() resolves to 'access' or 'refresh' redis keys
+                TokenType.REFRESH.getValue() + ":" + pair.getRefreshToken(),
+                RedisKeyConstants.USER_SESSIONS + ":" + userId,                 // For reverse lookups
+                RedisKeyConstants.USER_SESSIONS_GENERATION + ":" + userId
+        );
+        List<String> args = List.of(userId.toString(), String.valueOf(accessExpirationMs), String.valueOf(refreshExpirationMs),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(maxSessionsPerUser), String.valueOf(generation));
+        return redis.execute(CREATE_SESSION_SCRIPT, keys, args)
+                .next()
+                .flatMap(removed -> unlinkSessionKeys(removed).then(revokeRemovedSessions(removed, generation)));
+    }
 
-        String userSessionKey = RedisKeyConstants.USER_SESSIONS + ":" + userId;          // For reverse lookups
-        Mono<Long> pushToList = redis
-                .opsForList()
-                .rightPush(userSessionKey, key);
+    /**
+     * Current session generation of the user, read from Redis; embed it in newly issued tokens.
+     */
+    public Mono<Long> currentGeneration(UUID userId) {
+        return sessionGenerations.current(userId);
+    }
 
-        return Mono.when(storeToken, pushToList).then();
+    /**
+     * Atomically replace a token pair in one round trip.
+     * <p>
+     * Emits false and writes nothing if the current refresh token is no longer live for the user,
+     * e.g. because a concurrent request already rotated it, or if the user's sessions were invalidated since
+     * it was issued. The access token revoked with it is the one indexed with the refresh token, whichever access
+     * token the client presents; when they differ, its revocation is recorded in a second step.
+     *
+     * @param current    the presented {@link TokenPair}; its refresh token must already be verified
+     * @param next       the freshly issued {@link TokenPair}, signed with the same generation
+     * @param userId     owner of both pairs
+     * @param generation session generation of the presented refresh token
+     */
+    public Mono<Boolean> rotateSession(TokenPair current, TokenPair next, UUID userId, long generation) {
+        Optional<VerifiedToken> oldAccess = jwtProvider.verify(current.getAccessToken())
+                .filter(verified -> verified.tokenId() != null);
+        // Revocations are only shared through Redis when access tokens are validated statelessly
+        String oldAccessId = revocationFilter.isStatelessAccess()
+                ? oldAccess.map(VerifiedToken::tokenId).orElse("")
+                : "";
+        String oldAccessExpiresAt = oldAccess.map(verified -> String.valueOf(verified.expiresAt().toEpochMilli())).orElse("0");
+        List<String> keys = List.of(
+                TokenType.REFRESH.getValue() + ":" + current.getRefreshToken(),
+                TokenType.ACCESS.getValue() + ":" + current.getAccessToken(),
+                TokenType.ACCESS.getValue() + ":" + next.getAccessToken(),
+                TokenType.REFRESH.getValue() + ":" + next.getRefreshToken(),
+                RedisKeyConstants.USER_SESSIONS + ":" + userId,
+                RedisKeyConstants.REVOKED_TOKENS,
+                SessionGenerations.key(userId),
+                RedisKeyConstants.REVOKED_TOKENS_RECENT,
+                RedisKeyConstants.USER_SESSIONS_GENERATION + ":" + userId
+        );
+        List<String> args = List.of(userId.toString(), String.valueOf(accessExpirationMs), String.valueOf(refreshExpirationMs),
+                oldAccessId, String.valueOf(System.currentTimeMillis()), String.valueOf(generation), oldAccessExpiresAt);
+        return redis.execute(ROTATE_SESSION_SCRIPT, keys, args)
+                .next()
+                .flatMap(result -> {
+                    if (Long.parseLong(String.valueOf(result.get(0))) == 0) {
+                        return Mono.just(false);
+                    }
+                    if (result.size() < 2) {
+                        return Mono.just(true);
+                    }
+                    String revokedKey = String.valueOf(result.get(1));
+                    if (!revokedKey.equals(keys.get(1))) {
+                        // Not the presented token: the script could not share its revocation
+                        return revokeRemovedSessions(List.of(revokedKey), generation).thenReturn(true);
+                    }
+                    if (!oldAccessId.isEmpty()) {
+                        revocationFilter.markRevoked(oldAccessId);
+                    }
+                    return accessTokenCache.evictToken(current.getAccessToken()).thenReturn(true);
+                });
     }
 
     /** Validate an access token; returns the userId if valid. */
     public Mono<UUID> validateAccessToken(String token) {
-        return validateSession(token, TokenType.ACCESS);
+        return jwtProvider.verify(token)
+                .map(verified -> validateAccessToken(token, verified))
+                .orElseGet(Mono::empty);
+    }
+
+    /**
+     * Validate an access token whose JWT was already verified by the caller.
+     * <p>
+     * In stateless mode a token whose ID is not in the {@link RevocationFilter} is trusted without a session lookup,
+     * as long as its generation is not behind the user's (usually known locally, see {@link SessionGenerations}).
+     * Otherwise it is served from the near-cache when possible; returns the userId if the session is live.
+     */
+    public Mono<UUID> validateAccessToken(String token, VerifiedToken verified) {
+        if (verified.type() != TokenType.ACCESS) {
+            return Mono.empty();
+        }
+        if (revocationFilter.isStatelessAccess() && verified.tokenId() != null
+                && !revocationFilter.mightBeRevoked(verified.tokenId())) {
+            return sessionGenerations.cached(verified.userId())
+                    .filter(generation -> verified.generation() >= generation)
+                    .map(generation -> verified.userId());
+        }
+        // Possibly revoked (or a filter false positive): Redis is the source of truth
+        Optional<UUID> cached = accessTokenCache.get(token);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+        return validateSession(token, verified)
+                .doOnNext(userId -> accessTokenCache.put(token, userId, verified.expiresAt()));
     }
 
     /** Validate a refresh token; returns the userId if valid. */
     public Mono<UUID> validateRefreshToken(String token) {
-        return validateSession(token, TokenType.REFRESH);
+        return jwtProvider.verify(token)
+                .filter(verified -> verified.type() == TokenType.REFRESH)
+                .map(verified -> validateSession(token, verified))
+                .orElseGet(Mono::empty);
     }
 
-    /** Invalidate all sessions for a user. */
+    /**
+     * Invalidate all sessions for a user by bumping their session generation: O(1) however many devices they use.
+     * Validation rejects the old tokens at once because their "gen" claim is behind; their keys are deleted by the
+     * user's next {@link #createSessionPair}, or expire.
+     */
     public Mono<Void> invalidateAllSessionsForUser(UUID userId) {
-        String userSessionKey = RedisKeyConstants.USER_SESSIONS + ":" + userId;
-        return redis
-                .opsForList()
-                .range(userSessionKey, 0, -1)
-                .flatMap(redis::delete)
-                .then(redis.delete(userSessionKey))
-                .then();
+        return sessionGenerations.increment(userId)
+                .then(accessTokenCache.evictUser(userId));
     }
 
     /** Revoke a single token. */
     public Mono<Void> revokeSession(String token, TokenType tokenType) {
         String key = tokenType.getValue() + ":" + token;
-        return redis.delete(key).then();
+        Mono<Void> delete = redis.delete(key).then();
+        return tokenType == TokenType.ACCESS
+                ? delete.then(revocationFilter.revoke(revocableTokens(List.of(token), 0L)))
+                        .then(accessTokenCache.evictToken(token))
+                : delete;
     }
 
-    /** Core validation: check JWT then verify presence in Redis. */
-    private Mono<UUID> validateSession(String token, TokenType type) {
-        if (!jwtProvider.validateToken(token)) {
-            return Mono.empty();
-        }
-        if (type == TokenType.REFRESH && !jwtProvider.isRefreshToken(token)) {
+    /** Delete the token keys of session index members a script just removed, a bounded number per command. */
+    private Mono<Void> unlinkSessionKeys(List<?> members) {
+        return Flux.fromIterable(members)
+                .flatMapIterable(member -> Arrays.asList(member.toString().split(" ")))
+                .buffer(UNLINK_BATCH_SIZE)
+                .concatMap(keys -> redis.unlink(keys.toArray(String[]::new)))
+                .then();
+    }
+
+    /**
+     * Record revocations for the access tokens of session index members a script just removed.
+     * Members are "access:&lt;token&gt; refresh:&lt;token&gt;" pairs, or single keys migrated from the legacy list.
+     * Tokens from before {@code generation} are already rejected by their "gen" claim and need no revocation.
+     */
+    private Mono<Void> revokeRemovedSessions(List<?> members, long generation) {
+        String accessPrefix = TokenType.ACCESS.getValue() + ":";
+        List<String> accessTokens = members.stream()
+                .flatMap(member -> Arrays.stream(member.toString().split(" ")))
+                .filter(key -> key.startsWith(accessPrefix))
+                .map(key -> key.substring(accessPrefix.length()))
+                .toList();
+        if (accessTokens.isEmpty()) {
             return Mono.empty();
         }
-        String key = type.getValue() + ":" + token;
+        return revocationFilter.revoke(revocableTokens(accessTokens, generation))
+                .then(Flux.fromIterable(accessTokens)
+                        .concatMap(accessTokenCache::evictToken)
+                        .then());
+    }
+
+    /** The given access tokens that still verify and are not behind {@code generation}; the others need no revocation. */
+    private List<VerifiedToken> revocableTokens(Collection<String> accessTokens, long generation) {
+        return accessTokens.stream()
+                .flatMap(token -> jwtProvider.verify(token).stream())
+                .filter(verified -> verified.generation() >= generation)
+                .toList();
+    }
+
+    /**
+     * Core validation: the JWT is already verified, check its presence in Redis and that its generation is current.
+     * Both are read with one MGET.
+     */
+    private Mono<UUID> validateSession(String token, VerifiedToken verified) {
+        String key = verified.type().getValue() + ":" + token;
         return redis
                 .opsForValue()
-                .get(key)
-                .filter(uidStr -> {
-                    UUID tokenUid = jwtProvider.getUserIdFromJwt(token);
-                    return tokenUid.toString().equals(uidStr);
+                .multiGet(List.of(key, SessionGenerations.key(verified.userId())))
+                .filter(values -> verified.userId().toString().equals(values.get(0)))
+                .filter(values -> {
+                    long generation = values.get(1) == null ? 0L : Long.parseLong(values.get(1));
+                    sessionGenerations.observe(verified.userId(), generation);
+                    return verified.generation() >= generation;
                 })
-                .map(uidStr -> jwtProvider.getUserIdFromJwt(token));
+                .map(values -> verified.userId());
     }
 }
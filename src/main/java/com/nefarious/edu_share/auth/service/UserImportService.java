@@ -0,0 +1,282 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.nefarious.edu_share.auth.dto.ImportResult;
+import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.util.enums.ImportStatus;
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
+import com.nefarious.edu_share.user.entity.User;
+import com.nefarious.edu_share.user.service.UserService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk account creation for institution onboarding.
+ * <p>
+ * Rows stream through three steps without buffering the upload: validation, password hashing on the bounded
+ * hashing pool ({@code user-import.hash-concurrency} rows in flight), and multi-row INSERTs of
+ * {@code user-import.batch-size} rows. One result per row is emitted in input order as soon as its batch is stored.
+ * Verification emails go through the email outbox in the background and never hold up the response.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+    /** CSV columns, matched against the header row in any order */
+    private static final List<String> CSV_COLUMNS =
+            List.of("email", "username", "password", "firstName", "lastName", "dateOfBirth");
+
+    private final UserService userService;
+    private final AuthService authService;
+    private final Validator validator;
+
+    @Value("${user-import.batch-size}")
+    private int batchSize;
+
+    @Value("${user-import.hash-concurrency}")
+    private int hashConcurrency;
+
+    @Value("${user-import.email-concurrency}")
+    private int emailConcurrency;
+
+    /**
+     * Import newline-delimited JSON, one {@link SignupRequest} per line.
+     * @param requests the decoded body
+     * @return Flux emitting one {@link ImportResult} per row, in input order
+     */
+    public Flux<ImportResult> importJson(Flux<SignupRequest> requests) {
+        return requests.index()
+                .map(row -> ImportRow.of(row.getT1() + 1, row.getT2()))
+                .transform(this::importRows);
+    }
+
+    /**
+     * Import CSV with a header row naming the {@link SignupRequest} fields; dateOfBirth is ISO (yyyy-MM-dd).
+     * <p>Throws {@link BusinessException} with {@link BaseError#VALIDATION_FAILED} if the header lacks a column.
+     * @param lines the body split into lines
+     * @return Flux emitting one {@link ImportResult} per data row, in input order
+     */
+    public Flux<ImportResult> importCsv(Flux<String> lines) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .switchOnFirst((first, all) -> {
+                    if (!first.hasValue()) {
+                        return all.then(Mono.empty());
+                    }
+                    Map<String, Integer> columns = parseHeader(first.get().getT2());
+                    return all.skip(1).map(line -> parseCsvRow(line.getT1() + 1, line.getT2(), columns));
+                })
+                .transform(this::importRows);
+    }
+
+    private Flux<ImportResult> importRows(Flux<ImportRow> rows) {
+        int concurrency = hashConcurrency > 0 ? hashConcurrency : Runtime.getRuntime().availableProcessors();
+        return rows
+                .flatMapSequential(this::prepare, concurrency)
+                .buffer(batchSize)
+                .concatMap(this::insertBatch);
+    }
+
+    /** Validate the row and hash its password; failures become a result instead of an error */
+    private Mono<PreparedRow> prepare(ImportRow row) {
+        if (row.error() != null) {
+            return Mono.just(PreparedRow.failed(row, ImportStatus.INVALID, row.error()));
+        }
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(row.request());
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return Mono.just(PreparedRow.failed(row, ImportStatus.INVALID, message));
+        }
+        return userService.prepareUser(row.request())
+                .map(user -> new PreparedRow(row.line(), row.email(), user, null))
+                .onErrorResume(e -> Mono.just(PreparedRow.failed(row, ImportStatus.FAILED, e.getMessage())));
+    }
+
+    /**
+     * Store the valid rows of a batch and resolve every row to its result.
+     * A batch the database rejects as a whole (e.g. a CHECK constraint) is retried row by row to isolate the culprit.
+     * Only the INSERT is retried: once rows are stored, later failures must not report them as taken.
+     */
+    private Flux<ImportResult> insertBatch(List<PreparedRow> batch) {
+        List<User> users = batch.stream().map(PreparedRow::user).filter(Objects::nonNull).toList();
+        if (users.isEmpty()) {
+            return Flux.fromIterable(batch).map(PreparedRow::result);
+        }
+        return userService.createUsers(users)
+                .collectList()
+                .map(created -> resolve(batch, created)
+                        .doOnNext(this::sendVerificationEmails)
+                        .flatMapMany(Flux::fromIterable))
+                .onErrorResume(e -> Mono.just(retryRejected(batch, users.size(), e)))
+                .flatMapMany(results -> results);
+    }
+
+    private Flux<ImportResult> retryRejected(List<PreparedRow> batch, int users, Throwable cause) {
+        if (users > 1) {
+            log.warn("Import batch of {} rows rejected, retrying row by row: {}", users, cause.getMessage());
+            return Flux.fromIterable(batch).concatMap(row -> insertBatch(List.of(row)));
+        }
+        log.warn("Import of line {} failed: {}", batch.get(0).line(), cause.getMessage());
+        return Flux.just(new ImportResult(batch.get(0).line(), batch.get(0).email(),
+                ImportStatus.FAILED, null, BaseError.INTERNAL_SERVER_ERROR.getMessage()));
+    }
+
+    /**
+     * Match rows to the inserted identifiers; rows left over lost to an existing user or an earlier row.
+     * If the holders cannot be looked up, the left-over rows are reported as FAILED and the created ones still resolve.
+     */
+    private Mono<List<ImportResult>> resolve(List<PreparedRow> batch, List<UserIdentifiers> created) {
+        Map<String, UUID> inserted = new HashMap<>();
+        created.forEach(user -> inserted.put(identity(user.email(), user.username()), user.id()));
+        List<PreparedRow> skipped = batch.stream()
+                .filter(row -> row.user() != null && !inserted.containsKey(identity(row.user().getEmail(), row.user().getUsername())))
+                .toList();
+
+        Mono<List<UserIdentifiers>> taken = skipped.isEmpty()
+                ? Mono.just(List.of())
+                : userService.findTaken(
+                        skipped.stream().map(row -> row.user().getEmail()).toList(),
+                        skipped.stream().map(row -> row.user().getUsername()).toList())
+                    .collectList()
+                    .onErrorResume(e -> {
+                        log.warn("Could not look up the holders of {} skipped import rows: {}", skipped.size(), e.getMessage());
+                        return Mono.just(List.of());
+                    });
+
+        return taken.map(holders -> {
+            Set<String> takenEmails = holders.stream().map(UserIdentifiers::email).collect(Collectors.toSet());
+            Set<String> takenUsernames = holders.stream().map(UserIdentifiers::username).collect(Collectors.toSet());
+            List<ImportResult> results = new ArrayList<>(batch.size());
+            for (PreparedRow row : batch) {
+                if (row.user() == null) {
+                    results.add(row.result());
+                    continue;
+                }
+                // remove() so an exact duplicate later in the batch is not reported as created too
+                UUID id = inserted.remove(identity(row.user().getEmail(), row.user().getUsername()));
+                if (id != null) {
+                    results.add(new ImportResult(row.line(), row.email(), ImportStatus.CREATED, id, null));
+                } else if (takenEmails.contains(row.user().getEmail())) {
+                    results.add(new ImportResult(row.line(), row.email(), ImportStatus.EMAIL_IN_USE, null, null));
+                } else if (takenUsernames.contains(row.user().getUsername())) {
+                    results.add(new ImportResult(row.line(), row.email(), ImportStatus.USERNAME_IN_USE, null, null));
+                } else {
+                    // Skipped, yet its holder is gone again: a concurrent delete, report it as retryable
+                    results.add(new ImportResult(row.line(), row.email(), ImportStatus.FAILED, null, null));
+                }
+            }
+            return results;
+        });
+    }
+
+    /** Queue OTP emails for the created rows without delaying the response; failures are logged, users can resend */
+    private void sendVerificationEmails(List<ImportResult> results) {
+        Flux.fromIterable(results)
+                .filter(result -> result.getStatus() == ImportStatus.CREATED)
+                .flatMap(result -> authService.sendOtp(result.getEmail())
+                        .onErrorResume(e -> {
+                            log.warn("OTP email failed for imported user {}: {}", result.getEmail(), e.getMessage());
+                            return Mono.empty();
+                        }), emailConcurrency)
+                .subscribe();
+    }
+
+    private static String identity(String email, String username) {
+        return email + '\n' + username;
+    }
+
+    private static Map<String, Integer> parseHeader(String header) {
+        List<String> names = splitCsv(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (String column : CSV_COLUMNS) {
+            int index = names.indexOf(column);
+            if (index < 0) {
+                throw new BusinessException(BaseError.VALIDATION_FAILED);
+            }
+            columns.put(column, index);
+        }
+        return columns;
+    }
+
+    private static ImportRow parseCsvRow(long line, String text, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(text);
+        if (fields.size() < columns.size()) {
+            return ImportRow.invalid(line, null, "Expected " + columns.size() + " columns, got " + fields.size());
+        }
+        SignupRequest request = new SignupRequest();
+        request.setEmail(fields.get(columns.get("email")));
+        request.setUsername(fields.get(columns.get("username")));
+        request.setPassword(fields.get(columns.get("password")));
+        request.setFirstName(fields.get(columns.get("firstName")));
+        request.setLastName(fields.get(columns.get("lastName")));
+        try {
+            request.setDateOfBirth(LocalDate.parse(fields.get(columns.get("dateOfBirth"))));
+        } catch (DateTimeParseException ex) {
+            return ImportRow.invalid(line, request.getEmail(), "dateOfBirth: must be yyyy-MM-dd");
+        }
+        return ImportRow.of(line, request);
+    }
+
+    /** Split one RFC 4180 line; quoted fields may contain commas and doubled quotes, but not line breaks */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** A parsed row: either a request or the reason it could not be parsed */
+    private record ImportRow(long line, String email, SignupRequest request, String error) {
+        static ImportRow of(long line, SignupRequest request) {
+            return new ImportRow(line, request.getEmail(), request, null);
+        }
+
+        static ImportRow invalid(long line, String email, String error) {
+            return new ImportRow(line, email, null, error);
+        }
+    }
+
+    /** A row ready to insert (user set) or already resolved (result fields set) */
+    private record PreparedRow(long line, String email, User user, ImportResult result) {
+        static PreparedRow failed(ImportRow row, ImportStatus status, String message) {
+            return new PreparedRow(row.line(), row.email(), null,
+                    new ImportResult(row.line(), row.email(), status, null, message));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.nefarious.edu_share.auth.util;
+
+import com.nefarious.edu_share.auth.util.enums.AuthFlow;
+import com.nefarious.edu_share.auth.util.enums.AuthStage;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per-stage latency of the AuthService flows, recorded as the {@code auth.flow.stage} timer.
+ * <p>
+ * {@link #flow(AuthFlow)} wraps a whole flow (stage {@code total}) and puts the flow into the Reactor context,
+ * so {@link #stage(AuthStage)} can tag the calls inside it without threading the flow through every service.
+ * A stage outside any flow (e.g. a background rehash) is tagged {@code flow=none}.
+ * <p>
+ * All tags are bounded: flow and stage are enums, outcome is {@code success}, {@code cancelled},
+ * the {@link com.nefarious.edu_share.shared.interfaces.BusinessError} name (e.g. {@code INVALID_OTP}) or {@code error}.
+ * Histogram buckets come from {@code management.metrics.distribution.slo.auth.flow.stage}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthFlowMetrics {
+    private static final String TIMER     = "auth.flow.stage";
+    private static final String FLOW_KEY  = "auth.flow";
+    private static final String NO_FLOW   = "none";
+    private static final String SUCCESS   = "success";
+    private static final String CANCELLED = "cancelled";
+    private static final String ERROR     = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    /** Time the whole flow and make it the {@code flow} tag of every stage subscribed inside it */
+    public <T> Function<Mono<T>, Mono<T>> flow(AuthFlow flow) {
+        return mono -> timed(mono, flow.getValue(), AuthStage.TOTAL.getValue())
+                .contextWrite(ctx -> ctx.put(FLOW_KEY, flow.getValue()));
+    }
+
+    /** Time one stage of the flow found in the subscriber context */
+    public <T> Function<Mono<T>, Mono<T>> stage(AuthStage stage) {
+        return mono -> Mono.deferContextual(ctx -> timed(mono, ctx.getOrDefault(FLOW_KEY, NO_FLOW), stage.getValue()));
+    }
+
+    private <T> Mono<T> timed(Mono<T> mono, String flow, String stage) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return mono
+                    .doOnSuccess(value -> record(flow, stage, SUCCESS, started))
+                    .doOnError(e -> record(flow, stage, outcome(e), started))
+                    .doOnCancel(() -> record(flow, stage, CANCELLED, started));
+        });
+    }
+
+    private void record(String flow, String stage, String outcome, long startedNanos) {
+        Timer.builder(TIMER)
+                .description("Latency of one stage of an auth flow")
+                .tag("flow", flow)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Error enums are the only business errors, so their constant name is a bounded tag value */
+    private static String outcome(Throwable e) {
+        if (e instanceof BusinessException be && be.getBusinessError() instanceof Enum<?> error) {
+            return error.name();
+        }
+        return ERROR;
+    }
+}
@@ -6,7 +6,11 @@ public class Endpoint {
     public static final String SIGNIN                    = "/signin";
     public static final String VERIFY_OTP                = "/otp/verify";
     public static final String LOGOUT                    = "/logout";
+    public static final String LOGOUT_ALL                = "/logout/all";
     public static final String SEND_OTP                  = "/otp";
     public static final String REFRESH_SESSION           = "/refresh";
     public static final String FORGOT_PASSWORD           = "/forgot-password";
+    public static final String AVAILABILITY              = "/availability";
+    public static final String ADMIN                     = "/admin";
+    public static final String USER_IMPORT               = "/users/import";
 }
@@ -0,0 +1,22 @@
+package com.nefarious.edu_share.auth.util.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * AuthService flows timed by {@link com.nefarious.edu_share.auth.util.AuthFlowMetrics}
+ * <br>
+ * The value is used as the {@code flow} tag
+ */
+@AllArgsConstructor
+@Getter
+public enum AuthFlow {
+    SIGNUP("signup"),
+    SIGNIN("signin"),
+    VERIFY_OTP("verify_otp"),
+    REFRESH_SESSION("refresh_session"),
+    LOGOUT("logout"),
+    LOGOUT_ALL("logout_all"),
+    FORGOT_PASSWORD("forgot_password");
+    private final String value;
+}
@@ -0,0 +1,33 @@
+package com.nefarious.edu_share.auth.util.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stages of the {@link AuthFlow}s; the value is used as the {@code stage} tag
+ * <br>
+ * TOTAL covers the whole flow, the others one call inside it
+ */
+@AllArgsConstructor
+@Getter
+public enum AuthStage {
+    TOTAL("total"),
+    FIND_USER("find_user"),
+    HASH_PASSWORD("hash_password"),
+    VERIFY_PASSWORD("verify_password"),
+    INSERT_USER("insert_user"),
+    UPDATE_PASSWORD("update_password"),
+    MARK_VERIFIED("mark_verified"),
+    GENERATE_OTP("generate_otp"),
+    SEND_EMAIL("send_email"),
+    VALIDATE_OTP("validate_otp"),
+    VERIFY_TOKEN("verify_token"),
+    READ_GENERATION("read_generation"),
+    SIGN_TOKENS("sign_tokens"),
+    STORE_SESSION("store_session"),
+    ROTATE_SESSION("rotate_session"),
+    REVOKE_SESSION("revoke_session"),
+    INVALIDATE_SESSIONS("invalidate_sessions"),
+    RATE_LIMIT_RESET("rate_limit_reset");
+    private final String value;
+}
@@ -0,0 +1,16 @@
+package com.nefarious.edu_share.auth.util.enums;
+
+/**
+ * Outcome of one row of a bulk user import
+ * <br>
+ * CREATED: account inserted, verification email queued
+ * <br>
+ * INVALID: the row failed parsing or validation
+ * <br>
+ * EMAIL_IN_USE / USERNAME_IN_USE: taken by an existing account or an earlier row
+ * <br>
+ * FAILED: could not be hashed or stored, safe to retry
+ */
+public enum ImportStatus {
+    CREATED, INVALID, EMAIL_IN_USE, USERNAME_IN_USE, FAILED
+}
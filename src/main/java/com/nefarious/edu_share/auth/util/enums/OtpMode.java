@@ -0,0 +1,13 @@
+package com.nefarious.edu_share.auth.util.enums;
+
+/**
+ * How OTPs are issued and checked
+ * <br>
+ * STORED: random code kept in Redis until used or expired
+ * <br>
+ * STATELESS: code derived from an HMAC of the email, a per-email issue counter and the time step; Redis keeps the
+ * counter, the last consumed issue and the failed attempts, but never the code
+ */
+public enum OtpMode {
+    STORED, STATELESS
+}
@@ -15,4 +15,14 @@ import lombok.Getter;
 public enum TokenType {
     ACCESS("access"), REFRESH("refresh");
     private final String value;
+
+    /** Resolve a TokenType from its claim value; returns null for unknown values */
+    public static TokenType fromValue(String value) {
+        for (TokenType type : values()) {
+            if (type.value.equals(value)) {
+                return type;
+            }
+        }
+        return null;
+    }
 }
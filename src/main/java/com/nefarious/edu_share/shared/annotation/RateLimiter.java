@@ -1,5 +1,7 @@
 package com.nefarious.edu_share.shared.annotation;
 
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
+
 import java.lang.annotation.*;
 
 /**
@@ -7,19 +9,26 @@ import java.lang.annotation.*;
  *
  * <p>Usage example:
  * <pre>
- *     @RateLimiter(key = "signin:{email}", property = "rate-limit.login-attempts")
+ *     @RateLimiter(key = "signin:#{#email}", property = "rate-limit.login-attempts", algorithm = RateLimitAlgorithm.SLIDING_LOG)
+ *     public void login(String email) { ... }
+ *
+ *     @RateLimiter(key = {"signin:#{#clientIp}", "#{#email}"}, property = "rate-limit.login-attempts")
  *     public void login(String email) { ... }
  * </pre>
  *
- * @param key Redis key template. Use placeholders like {email} to be replaced by method arguments.
+ * @param key Redis key template(s). Use placeholders like #{#email} to be replaced by method arguments,
+ *            #{#clientIp} for the caller's address. Several templates form a composite key joined with ":".
  * @param property Application property name that specifies the rate limit threshold.
+ * @param algorithm {@link RateLimitAlgorithm} used to count calls, fixed window by default.
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface RateLimiter {
-    /** Redis key template. Use placeholders like {email} */
-    String key();
+    /** Redis key template(s). Use placeholders like #{#email}; several templates are joined with ":" */
+    String[] key();
     /** Property name in application properties, e.g. "rate-limit.login-attempts" */
     String property();
+    /** Counting algorithm, e.g. SLIDING_LOG to avoid bursts at window edges */
+    RateLimitAlgorithm algorithm() default RateLimitAlgorithm.FIXED_WINDOW;
 }
@@ -8,16 +8,18 @@ import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.core.env.Environment;
-import org.springframework.expression.*;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.*;
+import org.reactivestreams.Publisher;
 import org.springframework.stereotype.Component;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import org.springframework.expression.common.TemplateParserContext;
+import reactor.util.context.ContextView;
+
 import java.lang.reflect.Method;
-import java.util.Objects;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
@@ -25,47 +27,58 @@ import java.util.Objects;
 public class RateLimiterAspect {
 
     private final RateLimiterService rateLimiterService;
-    private final Environment env;
-    private final ExpressionParser parser     = new SpelExpressionParser();
-    private final ParserContext    tplContext = new TemplateParserContext("#{", "}");
+    /** Key resolvers compiled once per annotated method */
+    private final Map<Method, RateLimitKeyResolver> resolvers = new ConcurrentHashMap<>();
 
     @Around("@annotation(rateLimiter)")
     public Object around(ProceedingJoinPoint pjp, RateLimiter rateLimiter) throws Throwable {
         MethodSignature sig = (MethodSignature) pjp.getSignature();
         Method          method = sig.getMethod();
-
-        // Build the evaluation context
-        StandardEvaluationContext ctx = new StandardEvaluationContext();
-        String[] names = new DefaultParameterNameDiscoverer()
-                .getParameterNames(method);
+        RateLimitKeyResolver resolver = resolvers.computeIfAbsent(method, m -> new RateLimitKeyResolver(m, rateLimiter.key()));
         Object[] args = pjp.getArgs();
-        for (int i = 0; i < Objects.requireNonNull(names).length; i++) {
-            ctx.setVariable(names[i], args[i]);
-        }
 
-        // Parse "otp:#{#email}" as a template
-        String keyTemplate = rateLimiter.key();  // e.g. "otp:#{#email}"
-        Expression exp     = parser.parseExpression(keyTemplate, tplContext);
-        String     resolvedKey = exp.getValue(ctx, String.class); // "otp:foo@bar.com"
+        // Resolve e.g. "otp:#{#email}" to "otp:foo@bar.com" and apply the Redis-backed limiter
+        Mono<Boolean> allowed = Mono.deferContextual(ctx -> {
+            String resolvedKey = resolver.resolve(args, resolver.usesClientIp() ? clientIp(ctx) : null);
+            return rateLimiterService.tryAcquire(resolvedKey, rateLimiter.property(), rateLimiter.algorithm());
+        });
 
-        // Now apply your Redis-backed limiter
-        Mono<Boolean> allowed = rateLimiterService.tryAcquire(resolvedKey, rateLimiter.property());
-
-        // Proceed reactively
-        Object result = pjp.proceed();
-        if (result instanceof Mono) {
-            @SuppressWarnings("unchecked")
-            Mono<Object> original = (Mono<Object>) result;
+        // Only invoke the controller once the limiter has admitted the call
+        Class<?> returnType = method.getReturnType();
+        if (Mono.class.isAssignableFrom(returnType)) {
             return allowed.flatMap(ok -> ok
-                    ? original
+                    ? Mono.from(proceed(pjp))
                     : Mono.error(new BusinessException(BaseError.TOO_MANY_ATTEMPTS))
             );
+        } else if (Flux.class.isAssignableFrom(returnType)) {
+            return allowed.flatMapMany(ok -> ok
+                    ? Flux.from(proceed(pjp))
+                    : Flux.error(new BusinessException(BaseError.TOO_MANY_ATTEMPTS))
+            );
         } else {
             // fallback for sync methods
             if (Boolean.FALSE.equals(allowed.block())) {
                 throw new BusinessException(BaseError.TOO_MANY_ATTEMPTS);
             }
-            return result;
+            return pjp.proceed();
         }
     }
+
+    @SuppressWarnings("unchecked")
+    private static Publisher<Object> proceed(ProceedingJoinPoint pjp) {
+        try {
+            return (Publisher<Object>) pjp.proceed();
+        } catch (Throwable ex) {
+            return Mono.error(ex);
+        }
+    }
+
+    /** Caller address of the current exchange (forwarded headers are applied by the framework when enabled) */
+    private static String clientIp(ContextView ctx) {
+        return ServerWebExchangeContextFilter.getExchange(ctx)
+                .map(exchange -> exchange.getRequest().getRemoteAddress())
+                .map(InetSocketAddress::getAddress)
+                .map(InetAddress::getHostAddress)
+                .orElse("unknown");
+    }
 }
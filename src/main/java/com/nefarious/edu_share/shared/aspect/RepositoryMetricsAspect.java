@@ -0,0 +1,70 @@
+package com.nefarious.edu_share.shared.aspect;
+
+import com.nefarious.edu_share.shared.database.InstrumentedConnectionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every Spring Data repository call as {@code r2dbc.repository} tagged by "Repository.method" and outcome,
+ * and puts the method into the Reactor context so {@link InstrumentedConnectionFactory} can tag the connection
+ * acquire it triggers.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    /** Simple name of the application repository interface a proxy class implements */
+    private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> proxyClass) {
+            for (Class<?> type : proxyClass.getInterfaces()) {
+                if (type.getName().startsWith("com.nefarious.")) {
+                    return type.getSimpleName();
+                }
+            }
+            return proxyClass.getSimpleName();
+        }
+    };
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object around(ProceedingJoinPoint pjp) throws Throwable {
+        Object result = pjp.proceed();
+        // getThis() is the repository proxy, so inherited methods like save are named after the concrete repository
+        String method = REPOSITORY_NAMES.get(pjp.getThis().getClass()) + "." + pjp.getSignature().getName();
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long started = System.nanoTime();
+                return mono.doFinally(signal -> record(method, signal, started));
+            }).contextWrite(ctx -> ctx.put(InstrumentedConnectionFactory.REPOSITORY_METHOD, method));
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long started = System.nanoTime();
+                return flux.doFinally(signal -> record(method, signal, started));
+            }).contextWrite(ctx -> ctx.put(InstrumentedConnectionFactory.REPOSITORY_METHOD, method));
+        }
+        return result;
+    }
+
+    private void record(String method, SignalType signal, long startedNanos) {
+        Timer.builder("r2dbc.repository")
+                .description("Repository call duration, from subscription to completion")
+                .tag("method", method)
+                .tag("outcome", signal == SignalType.ON_ERROR ? "error" : signal == SignalType.CANCEL ? "cancel" : "success")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+}
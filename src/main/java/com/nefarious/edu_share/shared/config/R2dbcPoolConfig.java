@@ -0,0 +1,118 @@
+package com.nefarious.edu_share.shared.config;
+
+import com.nefarious.edu_share.shared.database.AdaptiveAllocationStrategy;
+import com.nefarious.edu_share.shared.database.InstrumentedConnectionFactory;
+import com.nefarious.edu_share.shared.database.MicrometerPoolMetricsRecorder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+@Configuration
+public class R2dbcPoolConfig {
+    private static final String POOL_URL_PREFIX = "r2dbc:pool:";
+
+    /**
+     * Defines the R2DBC {@link io.r2dbc.spi.ConnectionFactory}: a {@link ConnectionPool} built from the
+     * {@code spring.r2dbc.*} properties, with reactor-pool metrics and acquire timing per repository method.
+     * <p>
+     * With {@code r2dbc-pool.adaptive.enabled} the pool limit starts at {@code spring.r2dbc.pool.initial-size} and is
+     * moved within {@code [initial-size, max-size]} every {@code r2dbc-pool.adaptive.interval-ms} by
+     * {@link AdaptiveAllocationStrategy}; otherwise the pool is sized statically as before.
+     * Connection options are resolved as Spring Boot does: credentials and database name fill in what the URL lacks,
+     * and {@code spring.r2dbc.properties.*} are passed to the driver. An {@code r2dbc:pool:} URL is accepted, but the
+     * pool is always configured from {@code spring.r2dbc.pool.*}.
+     *
+     * @param properties    Spring Boot's R2DBC settings
+     * @param meterRegistry registry for the pool meters
+     * @return a new {@link InstrumentedConnectionFactory} wrapping the pool
+     */
+    @Bean
+    public InstrumentedConnectionFactory connectionFactory(R2dbcProperties properties, MeterRegistry meterRegistry,
+                                                           @Value("${r2dbc-pool.adaptive.enabled}") boolean adaptive,
+                                                           @Value("${r2dbc-pool.adaptive.interval-ms}") long intervalMs,
+                                                           @Value("${r2dbc-pool.adaptive.grow-threshold-ms}") long growThresholdMs,
+                                                           @Value("${r2dbc-pool.adaptive.shrink-threshold-ms}") long shrinkThresholdMs,
+                                                           @Value("${r2dbc-pool.adaptive.grow-step}") int growStep) {
+        R2dbcProperties.Pool pool = properties.getPool();
+
+        ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(
+                        ConnectionFactoryBuilder.withOptions(connectionOptions(properties)).build())
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .metricsRecorder(new MicrometerPoolMetricsRecorder(meterRegistry));
+        PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+        map.from(pool.getMinIdle()).to(builder::minIdle);
+        map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+        map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+        map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+        map.from(pool.getAcquireRetry()).to(builder::acquireRetry);
+        map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+        map.from(pool.getMaxValidationTime()).to(builder::maxValidationTime);
+        map.from(pool.getValidationQuery()).whenHasText().to(builder::validationQuery);
+        map.from(pool.getValidationDepth()).to(builder::validationDepth);
+
+        if (!adaptive) {
+            return new InstrumentedConnectionFactory(new ConnectionPool(builder.build()), meterRegistry, wait -> {});
+        }
+
+        AdaptiveAllocationStrategy strategy = new AdaptiveAllocationStrategy(pool.getInitialSize(), pool.getMaxSize(),
+                TimeUnit.MILLISECONDS.toNanos(growThresholdMs), TimeUnit.MILLISECONDS.toNanos(shrinkThresholdMs), growStep);
+        builder.customizer(poolBuilder -> poolBuilder.allocationStrategy(strategy));
+        Gauge.builder("r2dbc.pool.adaptive.limit", strategy, AdaptiveAllocationStrategy::limit)
+                .description("Current connection limit chosen by the adaptive pool")
+                .register(meterRegistry);
+        Gauge.builder("r2dbc.pool.adaptive.wait", strategy, s -> s.averageWaitNanos() / 1_000_000)
+                .description("Smoothed acquire wait driving the adaptive pool")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        ConnectionPool connectionPool = new ConnectionPool(builder.build());
+        Flux.interval(Duration.ofMillis(intervalMs), Schedulers.parallel())
+                .takeWhile(tick -> !connectionPool.isDisposed())
+                .subscribe(tick -> strategy.adjust());
+        log.info("Adaptive R2DBC pool enabled, limit {}-{}", pool.getInitialSize(), pool.getMaxSize());
+        return new InstrumentedConnectionFactory(connectionPool, meterRegistry, strategy::recordAcquireWait);
+    }
+
+    /** Driver options from the URL, completed by the other {@code spring.r2dbc.*} settings the URL does not set. */
+    private static ConnectionFactoryOptions.Builder connectionOptions(R2dbcProperties properties) {
+        String url = properties.getUrl();
+        // This pool replaces the one r2dbc:pool: would create, so connect through the wrapped driver directly
+        if (url.startsWith(POOL_URL_PREFIX)) {
+            url = "r2dbc:" + url.substring(POOL_URL_PREFIX.length());
+        }
+        ConnectionFactoryOptions urlOptions = ConnectionFactoryOptions.parse(url);
+        ConnectionFactoryOptions.Builder options = urlOptions.mutate();
+        fillIn(options, urlOptions, ConnectionFactoryOptions.USER, properties::getUsername);
+        fillIn(options, urlOptions, ConnectionFactoryOptions.PASSWORD, properties::getPassword);
+        fillIn(options, urlOptions, ConnectionFactoryOptions.DATABASE, properties::getName);
+        properties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+        return options;
+    }
+
+    private static <T extends CharSequence> void fillIn(ConnectionFactoryOptions.Builder options, ConnectionFactoryOptions urlOptions,
+                                                        Option<T> option, Supplier<? extends T> value) {
+        T candidate = value.get();
+        if (!urlOptions.hasOption(option) && StringUtils.hasText(candidate)) {
+            options.option(option, candidate);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.nefarious.edu_share.shared.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+
+@Configuration
+public class WebConfig {
+    /**
+     * Exposes the current exchange in the Reactor context, used by the rate limiter to resolve {@code #clientIp} keys.
+     * @return a new {@link ServerWebExchangeContextFilter} instance
+     */
+    @Bean
+    public ServerWebExchangeContextFilter serverWebExchangeContextFilter() {
+        return new ServerWebExchangeContextFilter();
+    }
+}
@@ -0,0 +1,114 @@
+package com.nefarious.edu_share.shared.database;
+
+import reactor.pool.AllocationStrategy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool sizing that moves a soft limit between {@code min} and {@code max} connections based on observed acquire wait.
+ * <p>
+ * Acquire waits are smoothed into an exponentially weighted average; {@link #adjust()} (called periodically) grows the
+ * limit while the average is above the grow threshold and shrinks it by one while it is below the shrink threshold.
+ * An adjust tick without any acquire since the previous one counts as a zero wait, so the average decays after a burst.
+ * Shrinking never closes busy connections: permits above the limit are simply not granted again once returned, and
+ * surplus idle connections age out through the pool's max idle time.
+ */
+public class AdaptiveAllocationStrategy implements AllocationStrategy {
+    /** Weight of the newest sample in the moving average */
+    private static final double ALPHA = 0.2;
+
+    private final int min;
+    private final int max;
+    private final long growThresholdNanos;
+    private final long shrinkThresholdNanos;
+    private final int growStep;
+
+    private final AtomicInteger granted = new AtomicInteger();
+    private final AtomicInteger samplesSinceAdjust = new AtomicInteger();
+    private volatile int limit;
+    private volatile double averageWaitNanos;
+
+    public AdaptiveAllocationStrategy(int min, int max, long growThresholdNanos, long shrinkThresholdNanos, int growStep) {
+        this.min = min;
+        this.max = max;
+        this.growThresholdNanos = growThresholdNanos;
+        this.shrinkThresholdNanos = shrinkThresholdNanos;
+        this.growStep = growStep;
+        this.limit = min;
+    }
+
+    /** Feed one observed acquire wait into the moving average. */
+    public void recordAcquireWait(long nanos) {
+        // Lost updates under contention only drop a sample, which the average tolerates
+        averageWaitNanos = averageWaitNanos + ALPHA * (nanos - averageWaitNanos);
+        samplesSinceAdjust.incrementAndGet();
+    }
+
+    /** Grow or shrink the limit from the current average wait. */
+    public void adjust() {
+        if (samplesSinceAdjust.getAndSet(0) == 0) {
+            // No acquires: nobody waited, otherwise the average would stay at its last burst value forever
+            averageWaitNanos = averageWaitNanos * (1 - ALPHA);
+        }
+        double average = averageWaitNanos;
+        if (average > growThresholdNanos) {
+            limit = Math.min(max, limit + growStep);
+        } else if (average < shrinkThresholdNanos) {
+            limit = Math.max(min, limit - 1);
+        }
+    }
+
+    /** Current soft limit on connections */
+    public int limit() {
+        return limit;
+    }
+
+    /** Current smoothed acquire wait, in nanoseconds */
+    public double averageWaitNanos() {
+        return averageWaitNanos;
+    }
+
+    @Override
+    public int estimatePermitCount() {
+        return Math.max(0, limit - granted.get());
+    }
+
+    @Override
+    public int getPermits(int desired) {
+        if (desired < 0) {
+            return 0;
+        }
+        for (;;) {
+            int current = granted.get();
+            int available = limit - current;
+            if (available <= 0) {
+                return 0;
+            }
+            // Like the size-based strategy, top up to the minimum even if fewer were asked for
+            int toGrant = Math.min(available, Math.max(desired, min - current));
+            if (granted.compareAndSet(current, current + toGrant)) {
+                return toGrant;
+            }
+        }
+    }
+
+    @Override
+    public int permitGranted() {
+        return granted.get();
+    }
+
+    @Override
+    public int permitMinimum() {
+        return min;
+    }
+
+    @Override
+    public int permitMaximum() {
+        return max;
+    }
+
+    @Override
+    public void returnPermits(int returned) {
+        granted.accumulateAndGet(returned, (current, released) -> Math.max(0, current - released));
+    }
+}
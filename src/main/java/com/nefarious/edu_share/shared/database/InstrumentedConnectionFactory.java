@@ -0,0 +1,82 @@
+package com.nefarious.edu_share.shared.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ConnectionFactory} in front of the {@link ConnectionPool} that times every acquire.
+ * <p>
+ * The wait is recorded as {@code r2dbc.pool.acquire}, tagged with the repository method found in the Reactor context
+ * under {@link #REPOSITORY_METHOD} ("none" for acquires outside a repository call, e.g. a transaction start), and is
+ * handed to an optional listener such as {@link AdaptiveAllocationStrategy}.
+ * Implements {@link Wrapped} so Spring Boot still finds the pool and registers its gauges.
+ */
+public class InstrumentedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, DisposableBean {
+    /** Reactor context key holding "Repository.method" of the current call */
+    public static final String REPOSITORY_METHOD = "repository-method";
+    private static final String NO_METHOD = "none";
+
+    private final ConnectionPool pool;
+    private final MeterRegistry meterRegistry;
+    private final LongConsumer acquireWaitListener;
+
+    /**
+     * @param pool                the pool to acquire from
+     * @param meterRegistry       registry for the acquire timer
+     * @param acquireWaitListener receives each acquire wait in nanoseconds
+     */
+    public InstrumentedConnectionFactory(ConnectionPool pool, MeterRegistry meterRegistry, LongConsumer acquireWaitListener) {
+        this.pool = pool;
+        this.meterRegistry = meterRegistry;
+        this.acquireWaitListener = acquireWaitListener;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.deferContextual(ctx -> {
+            String method = ctx.getOrDefault(REPOSITORY_METHOD, NO_METHOD);
+            long started = System.nanoTime();
+            return pool.create()
+                    .doOnSuccess(connection -> {
+                        long waited = System.nanoTime() - started;
+                        acquireTimer(method).record(waited, TimeUnit.NANOSECONDS);
+                        acquireWaitListener.accept(waited);
+                    });
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    private Timer acquireTimer(String method) {
+        // The registry returns the existing timer for a known tag set
+        return Timer.builder("r2dbc.pool.acquire")
+                .description("Time waiting for a pooled connection")
+                .tag("method", method)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
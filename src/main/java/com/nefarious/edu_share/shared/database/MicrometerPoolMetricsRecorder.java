@@ -0,0 +1,92 @@
+package com.nefarious.edu_share.shared.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.pool.PoolMetricsRecorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records reactor-pool internals of the R2DBC connection pool as Micrometer meters: connection creation latency,
+ * lifetime and idle time histograms, reset/destroy latency and fast/slow acquire paths.
+ * Complements the {@code r2dbc.pool.*} gauges Spring Boot registers for the pool (acquired, idle, pending, ...).
+ */
+public class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+    private final Timer allocationSuccess;
+    private final Timer allocationFailure;
+    private final Timer reset;
+    private final Timer destroy;
+    private final Timer lifetime;
+    private final Timer idleTime;
+    private final Counter recycled;
+    private final Counter fastPath;
+    private final Counter slowPath;
+
+    public MicrometerPoolMetricsRecorder(MeterRegistry meterRegistry) {
+        allocationSuccess = histogram("r2dbc.pool.allocation", "Time to open a new connection", meterRegistry, "outcome", "success");
+        allocationFailure = histogram("r2dbc.pool.allocation", "Time to open a new connection", meterRegistry, "outcome", "failure");
+        reset = histogram("r2dbc.pool.reset", "Time to reset a released connection", meterRegistry);
+        destroy = histogram("r2dbc.pool.destroy", "Time to close a connection", meterRegistry);
+        lifetime = histogram("r2dbc.pool.connection.lifetime", "Age of connections when closed", meterRegistry);
+        idleTime = histogram("r2dbc.pool.connection.idle", "Time connections sat idle before being acquired", meterRegistry);
+        recycled = Counter.builder("r2dbc.pool.recycled").description("Connections returned to the pool").register(meterRegistry);
+        fastPath = Counter.builder("r2dbc.pool.acquire.path").tag("path", "fast")
+                .description("Acquires served by an idle connection (fast) or queued (slow)").register(meterRegistry);
+        slowPath = Counter.builder("r2dbc.pool.acquire.path").tag("path", "slow")
+                .description("Acquires served by an idle connection (fast) or queued (slow)").register(meterRegistry);
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        allocationSuccess.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        allocationFailure.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+        reset.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+        destroy.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordRecycled() {
+        recycled.increment();
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+        lifetime.record(millisecondsSinceAllocation, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+        idleTime.record(millisecondsIdle, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordSlowPath() {
+        slowPath.increment();
+    }
+
+    @Override
+    public void recordFastPath() {
+        fastPath.increment();
+    }
+
+    private static Timer histogram(String name, String description, MeterRegistry meterRegistry, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
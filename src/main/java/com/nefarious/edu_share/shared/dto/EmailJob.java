@@ -0,0 +1,46 @@
+package com.nefarious.edu_share.shared.dto;
+
+import com.nefarious.edu_share.shared.utils.enums.EmailType;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An email waiting in the outbox.
+ * @param id      unique job id, stable across retries
+ * @param type    template to render
+ * @param to      recipient address
+ * @param code    value filled into the template (the OTP)
+ * @param attempt number of failed delivery attempts so far
+ */
+public record EmailJob(String id, EmailType type, String to, String code, int attempt) {
+
+    public static EmailJob otp(String to, String code) {
+        return new EmailJob(UUID.randomUUID().toString(), EmailType.OTP, to, code, 0);
+    }
+
+    /** Copy of this job after one more failed attempt */
+    public EmailJob nextAttempt() {
+        return new EmailJob(id, type, to, code, attempt + 1);
+    }
+
+    /** Fields of the outbox stream entry */
+    public Map<String, String> toFields() {
+        return Map.of(
+                "id", id,
+                "type", type.name(),
+                "to", to,
+                "code", code,
+                "attempt", String.valueOf(attempt));
+    }
+
+    /** Read a job back from an outbox stream entry */
+    public static EmailJob fromFields(Map<?, ?> fields) {
+        return new EmailJob(
+                String.valueOf(fields.get("id")),
+                EmailType.valueOf(String.valueOf(fields.get("type"))),
+                String.valueOf(fields.get("to")),
+                String.valueOf(fields.get("code")),
+                Integer.parseInt(String.valueOf(fields.get("attempt"))));
+    }
+}
@@ -11,7 +11,8 @@ public enum BaseError implements BusinessError {
     TOO_MANY_ATTEMPTS           ("You went too fast and hit a wall. Try later!", HttpStatus.TOO_MANY_REQUESTS),
     VALIDATION_FAILED           ("Validation failed",           HttpStatus.BAD_REQUEST),
     INTERNAL_SERVER_ERROR       ("Oh we ran into a hiccup!",    HttpStatus.INTERNAL_SERVER_ERROR),
-    EMPTY_MESSAGE               ("Your request is empty!",      HttpStatus.BAD_REQUEST)
+    EMPTY_MESSAGE               ("Your request is empty!",      HttpStatus.BAD_REQUEST),
+    SERVICE_BUSY                ("We're swamped right now. Try again shortly!", HttpStatus.SERVICE_UNAVAILABLE)
     ;
     private final String message;
     private final HttpStatus httpStatus;
@@ -0,0 +1,22 @@
+package com.nefarious.edu_share.shared.interfaces;
+
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/** Decides whether a rate-limited call may proceed, in a single atomic Redis operation */
+public interface RateLimitEngine {
+    /** The {@link RateLimitAlgorithm} implemented by this engine */
+    RateLimitAlgorithm algorithm();
+
+    /**
+     * Attempt to acquire a permit.
+     *
+     * @param redisKey fully-resolved Redis key (e.g. "rate-limit:signin:foo@bar.com")
+     * @param limit    max calls allowed per window
+     * @param window   window length (the configured cooldown)
+     * @return Mono that emits true if under limit, false if exceeded
+     */
+    Mono<Boolean> tryAcquire(String redisKey, long limit, Duration window);
+}
@@ -0,0 +1,17 @@
+package com.nefarious.edu_share.shared.interfaces;
+
+import com.nefarious.edu_share.user.entity.UserEvent;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/** Publish user lifecycle events from the outbox to other services */
+public interface UserEventPublisher {
+    /**
+     * Publish a batch of events, keeping their order per user.
+     *
+     * @param events events ordered by outbox id
+     * @return Mono completing once every event is durably accepted; an error leaves the batch in the outbox for a retry
+     */
+    Mono<Void> publish(List<UserEvent> events);
+}
@@ -0,0 +1,35 @@
+package com.nefarious.edu_share.shared.ratelimit;
+
+import com.nefarious.edu_share.shared.interfaces.RateLimitEngine;
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/** Fixed-window counter; exceeding the limit restarts the cooldown. One scripted round trip per check. */
+@Component
+@RequiredArgsConstructor
+public class FixedWindowRateLimitEngine implements RateLimitEngine {
+    private static final RedisScript<Long> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-fixed-window.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redis;
+
+    @Override
+    public RateLimitAlgorithm algorithm() {
+        return RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String redisKey, long limit, Duration window) {
+        return redis.execute(SCRIPT, List.of(redisKey), List.of(String.valueOf(limit), String.valueOf(window.toMillis())))
+                .next()
+                .map(admitted -> admitted == 1L);
+    }
+}
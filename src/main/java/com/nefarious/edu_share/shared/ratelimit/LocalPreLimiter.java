@@ -0,0 +1,90 @@
+package com.nefarious.edu_share.shared.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process first tier of rate limiting: a lock-free token bucket per key on each node.
+ * <p>
+ * Floods are rejected here without a Redis round trip; only admitted calls go on to the distributed check.
+ * A bucket holds the global {@code rate-limit.*} limit split across {@code rate-limit.local.node-count} nodes,
+ * scaled by {@code rate-limit.local.headroom} so uneven load balancing does not reject calls the global tier
+ * would admit. Buckets live in a bounded, striped concurrent map and are dropped once idle for a full window.
+ */
+@Component
+public class LocalPreLimiter {
+    @Value("${rate-limit.local.node-count}")
+    private int nodeCount;
+
+    @Value("${rate-limit.local.headroom}")
+    private double headroom;
+
+    @Value("${rate-limit.local.max-keys}")
+    private long maxKeys;
+
+    @Value("${rate-limit.cooldown}")
+    private long cooldownMinutes;
+
+    private Cache<String, TokenBucket> buckets;
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(cooldownMinutes))
+                .build();
+    }
+
+    /**
+     * Take a token from the key's local bucket.
+     *
+     * @param key         fully-resolved rate limit key
+     * @param globalLimit limit configured for the whole cluster
+     * @param window      window the global limit applies to
+     * @return true if the call may go on to the distributed check, false to reject it right away
+     */
+    public boolean tryAcquire(String key, long globalLimit, Duration window) {
+        long capacity = Math.max(1, (long) Math.ceil(globalLimit * headroom / nodeCount));
+        return buckets.get(key, k -> new TokenBucket(capacity, window)).tryConsume();
+    }
+
+    /** Refill the key's local bucket, e.g. after a successful signin. */
+    public void reset(String key) {
+        buckets.invalidate(key);
+    }
+
+    /**
+     * Token bucket kept as a single theoretical-arrival-time (GCRA) so admission is one CAS, no locks.
+     * Allows bursts of {@code capacity} calls, refilled at {@code capacity} per window.
+     */
+    private static final class TokenBucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        TokenBucket(long capacity, Duration window) {
+            this.intervalNanos = Math.max(1, window.toNanos() / capacity);
+            this.burstNanos = intervalNanos * capacity;
+        }
+
+        boolean tryConsume() {
+            while (true) {
+                long now = System.nanoTime();
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - burstNanos > now) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
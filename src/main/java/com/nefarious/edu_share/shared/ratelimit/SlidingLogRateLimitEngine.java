@@ -0,0 +1,37 @@
+package com.nefarious.edu_share.shared.ratelimit;
+
+import com.nefarious.edu_share.shared.interfaces.RateLimitEngine;
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/** Sliding log of call timestamps; at most limit calls in any trailing window. One scripted round trip per check. */
+@Component
+@RequiredArgsConstructor
+public class SlidingLogRateLimitEngine implements RateLimitEngine {
+    private static final RedisScript<Long> SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate-limit-sliding-log.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redis;
+
+    @Override
+    public RateLimitAlgorithm algorithm() {
+        return RateLimitAlgorithm.SLIDING_LOG;
+    }
+
+    @Override
+    public Mono<Boolean> tryAcquire(String redisKey, long limit, Duration window) {
+        List<String> args = List.of(String.valueOf(limit), String.valueOf(window.toMillis()), UUID.randomUUID().toString());
+        return redis.execute(SCRIPT, List.of(redisKey), args)
+                .next()
+                .map(admitted -> admitted == 1L);
+    }
+}
@@ -0,0 +1,134 @@
+package com.nefarious.edu_share.shared.service;
+
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import com.nefarious.edu_share.shared.utils.enums.BlockingIntegration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking client calls on virtual threads instead of the capped, shared boundedElastic pool.
+ * <p>
+ * A waiting call costs a virtual thread rather than a platform thread, so slow integrations no longer starve
+ * each other. Each {@link BlockingIntegration} is still capped by {@code blocking-io.<name>.max-concurrency}
+ * to protect the remote side; a call that cannot start within {@code acquire-timeout-ms} fails with
+ * {@link BaseError#SERVICE_BUSY}. Metrics are exported as {@code blocking.io.*}, tagged by integration.
+ */
+@Service
+@RequiredArgsConstructor
+public class BlockingIoScheduler {
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<BlockingIntegration, Bulkhead> bulkheads = new EnumMap<>(BlockingIntegration.class);
+    private ExecutorService executor;
+    private Scheduler scheduler;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-io-", 0).factory());
+        scheduler = Schedulers.fromExecutorService(executor, "blocking-io");
+        for (BlockingIntegration integration : BlockingIntegration.values()) {
+            String prefix = "blocking-io." + integration.getValue();
+            bulkheads.put(integration, new Bulkhead(integration,
+                    env.getRequiredProperty(prefix + ".max-concurrency", Integer.class),
+                    env.getRequiredProperty(prefix + ".acquire-timeout-ms", Long.class)));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+        executor.shutdown();
+    }
+
+    /**
+     * Run a blocking task on a virtual thread within the integration's concurrency limit.
+     * @param integration the integration the task calls, selecting its limit and metric tags
+     * @param task        the blocking call
+     * @return a Mono emitting the task's result, or its exception
+     */
+    public <T> Mono<T> call(BlockingIntegration integration, Callable<T> task) {
+        Bulkhead bulkhead = bulkheads.get(integration);
+        return Mono.fromCallable(() -> bulkhead.run(task))
+                .subscribeOn(scheduler);
+    }
+
+    /** Concurrency limit and meters of one integration */
+    private final class Bulkhead {
+        private final String integration;
+        private final Semaphore permits;
+        private final int maxConcurrency;
+        private final long acquireTimeoutMs;
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        Bulkhead(BlockingIntegration integration, int maxConcurrency, long acquireTimeoutMs) {
+            this.integration = integration.getValue();
+            this.maxConcurrency = maxConcurrency;
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            this.permits = new Semaphore(maxConcurrency);
+
+            Gauge.builder("blocking.io.active", permits, semaphore -> this.maxConcurrency - semaphore.availablePermits())
+                    .description("Blocking calls in progress")
+                    .tag("integration", this.integration)
+                    .register(meterRegistry);
+            Gauge.builder("blocking.io.waiting", permits, Semaphore::getQueueLength)
+                    .description("Blocking calls waiting for a permit")
+                    .tag("integration", this.integration)
+                    .register(meterRegistry);
+            waitTimer = Timer.builder("blocking.io.wait")
+                    .description("Time a blocking call waited for a permit")
+                    .tag("integration", this.integration)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            rejected = Counter.builder("blocking.io.rejected")
+                    .description("Blocking calls that timed out waiting for a permit")
+                    .tag("integration", this.integration)
+                    .register(meterRegistry);
+        }
+
+        <T> T run(Callable<T> task) throws Exception {
+            long queued = System.nanoTime();
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new BusinessException(BaseError.SERVICE_BUSY);
+            }
+            long started = System.nanoTime();
+            waitTimer.record(started - queued, TimeUnit.NANOSECONDS);
+            String outcome = "error";
+            try {
+                T result = task.call();
+                outcome = "success";
+                return result;
+            } finally {
+                permits.release();
+                Timer.builder("blocking.io.duration")
+                        .description("Time spent in a blocking call")
+                        .tag("integration", integration)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
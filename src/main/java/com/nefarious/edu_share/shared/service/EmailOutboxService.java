@@ -0,0 +1,46 @@
+package com.nefarious.edu_share.shared.service;
+
+import com.nefarious.edu_share.auth.util.enums.AuthError;
+import com.nefarious.edu_share.shared.dto.EmailJob;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import com.nefarious.edu_share.shared.interfaces.EmailService;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link EmailService} that only enqueues: each email becomes an entry in the {@link RedisKeyConstants#EMAIL_OUTBOX}
+ * stream, delivered later in batches by {@link EmailOutboxWorker}. Requests never wait on SMTP.
+ * The stream is trimmed to about {@code email-outbox.max-length} entries, so codes are never kept indefinitely.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService implements EmailService {
+    private final ReactiveStringRedisTemplate redis;
+
+    @Value("${email-outbox.max-length}")
+    private long maxLength;
+
+    @Override
+    public Mono<Void> sendOtpEmail(String to, String otpCode) throws BusinessException {
+        return enqueue(EmailJob.otp(to, otpCode));
+    }
+
+    private Mono<Void> enqueue(EmailJob job) {
+        return redis.opsForStream()
+                .add(StreamRecords.mapBacked(job.toFields()).withStreamKey(RedisKeyConstants.EMAIL_OUTBOX),
+                        XAddOptions.maxlen(maxLength).approximateTrimming(true))
+                .onErrorMap(e -> {
+                    log.error("Failed to enqueue {} email to {}: {}", job.type(), job.to(), e.getMessage());
+                    return new BusinessException(AuthError.FAILED_TO_SEND_OTP);
+                })
+                .then();
+    }
+}
@@ -0,0 +1,265 @@
+package com.nefarious.edu_share.shared.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nefarious.edu_share.shared.dto.EmailJob;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import com.nefarious.edu_share.shared.utils.enums.BlockingIntegration;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Drains the {@link RedisKeyConstants#EMAIL_OUTBOX} stream and hands the emails to {@link SmtpService} in batches.
+ * <p>
+ * Every node joins the same consumer group, so each entry is delivered by one worker. An entry is acknowledged and
+ * deleted only after it was sent or rescheduled: failures move to {@link RedisKeyConstants#EMAIL_OUTBOX_RETRY} with
+ * exponential backoff and, after {@code email-outbox.max-attempts}, to {@link RedisKeyConstants#EMAIL_OUTBOX_DEAD}.
+ * Entries left pending by a worker that died mid-batch are claimed by another one after {@code email-outbox.claim-idle-ms}.
+ * Delivery is at-least-once. Dead letters keep no OTP and both streams are capped (approximately) at their configured
+ * max length.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxWorker {
+    private static final String GROUP = "email-workers";
+    /** ZREM of a due retry and XADD of its entry, in one call */
+    private static final RedisScript<Long> PROMOTE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/email-retry-promote.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redis;
+    private final SmtpService smtpService;
+    private final BlockingIoScheduler blockingIoScheduler;
+    private final ObjectMapper objectMapper;
+
+    @Value("${email-outbox.workers}")
+    private int workers;
+
+    @Value("${email-outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${email-outbox.poll-interval-ms}")
+    private long pollIntervalMs;
+
+    @Value("${email-outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${email-outbox.backoff-initial-ms}")
+    private long backoffInitialMs;
+
+    @Value("${email-outbox.backoff-max-ms}")
+    private long backoffMaxMs;
+
+    @Value("${email-outbox.claim-idle-ms}")
+    private long claimIdleMs;
+
+    @Value("${email-outbox.max-length}")
+    private long maxLength;
+
+    @Value("${email-outbox.dead-max-length}")
+    private long deadMaxLength;
+
+    /** Unique per process, so entries pending under a dead process are recognisable as stale */
+    private final String consumerPrefix = "worker-" + UUID.randomUUID();
+    private final Disposable.Composite loops = Disposables.composite();
+
+    @PostConstruct
+    void init() {
+        Duration pollInterval = Duration.ofMillis(pollIntervalMs);
+        for (int i = 0; i < workers; i++) {
+            Consumer consumer = Consumer.from(GROUP, consumerPrefix + "-" + i);
+            loops.add(poll(pollInterval, () -> drain(consumer)));
+        }
+        Consumer janitor = Consumer.from(GROUP, consumerPrefix + "-janitor");
+        loops.add(poll(pollInterval, () -> promoteDueRetries().then(reclaimStale(janitor))));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loops.dispose();
+    }
+
+    private Disposable poll(Duration interval, Supplier<Mono<Void>> task) {
+        // A failure to create the group (e.g. Redis not up yet) must not end the loop before its first tick
+        return ensureGroup()
+                .doOnError(e -> log.warn("Email outbox group setup failed, retrying: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .thenMany(Flux.interval(interval))
+                .onBackpressureDrop()
+                .concatMap(tick -> task.get()
+                        .onErrorResume(e -> {
+                            log.warn("Email outbox poll failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /** Create the consumer group (and the stream) unless another node already did. */
+    private Mono<Void> ensureGroup() {
+        return redis.opsForStream()
+                .createGroup(RedisKeyConstants.EMAIL_OUTBOX, ReadOffset.from("0"), GROUP)
+                .onErrorResume(e -> String.valueOf(e.getMessage()).contains("BUSYGROUP")
+                        || (e.getCause() != null && String.valueOf(e.getCause().getMessage()).contains("BUSYGROUP")),
+                        e -> Mono.empty())
+                .then();
+    }
+
+    /** Read and send full batches until the stream is empty for this consumer. */
+    private Mono<Void> drain(Consumer consumer) {
+        return readBatch(consumer)
+                .expand(sent -> sent < batchSize ? Mono.empty() : readBatch(consumer))
+                .then();
+    }
+
+    private Mono<Integer> readBatch(Consumer consumer) {
+        return redis.opsForStream()
+                .read(consumer, StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(RedisKeyConstants.EMAIL_OUTBOX, ReadOffset.lastConsumed()))
+                .collectList()
+                .flatMap(this::process);
+    }
+
+    /** Take over entries another worker read but never acknowledged. */
+    private Mono<Void> reclaimStale(Consumer janitor) {
+        Duration minIdle = Duration.ofMillis(claimIdleMs);
+        return redis.opsForStream()
+                .pending(RedisKeyConstants.EMAIL_OUTBOX, GROUP, Range.unbounded(), batchSize)
+                .flatMapMany(Flux::fromIterable)
+                .filter(pending -> pending.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+                .map(PendingMessage::getId)
+                .collectList()
+                .filter(ids -> !ids.isEmpty())
+                .flatMapMany(ids -> redis.opsForStream().claim(RedisKeyConstants.EMAIL_OUTBOX, GROUP, janitor.getName(),
+                        XClaimOptions.minIdle(minIdle).ids(ids.toArray(RecordId[]::new))))
+                .collectList()
+                .flatMap(this::process)
+                .then();
+    }
+
+    /** Move retries whose backoff has elapsed back into the outbox stream. */
+    private Mono<Void> promoteDueRetries() {
+        return redis.opsForZSet()
+                .rangeByScore(RedisKeyConstants.EMAIL_OUTBOX_RETRY,
+                        Range.closed(0d, (double) System.currentTimeMillis()), Limit.limit().count(batchSize))
+                .concatMap(member -> redis.execute(PROMOTE_SCRIPT,
+                        List.of(RedisKeyConstants.EMAIL_OUTBOX_RETRY, RedisKeyConstants.EMAIL_OUTBOX),
+                        promoteArgs(member)))
+                .then();
+    }
+
+    private List<String> promoteArgs(String member) {
+        List<String> args = new ArrayList<>();
+        args.add(member);
+        args.add(String.valueOf(maxLength));
+        fromJson(member).toFields().forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return args;
+    }
+
+    /**
+     * Send one batch, reschedule failures, then acknowledge and delete every entry of the batch.
+     * If the whole batch fails (SMTP pool busy, transport down), every job of it is rescheduled.
+     */
+    private Mono<Integer> process(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return Mono.just(0);
+        }
+        Map<EmailJob, RecordId> jobs = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                jobs.put(EmailJob.fromFields(record.getValue()), record.getId());
+            } catch (RuntimeException ex) {
+                log.error("Dropping malformed outbox entry {}: {}", record.getId(), ex.getMessage());
+            }
+        }
+        RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+
+        return blockingIoScheduler.call(BlockingIntegration.SMTP, () -> smtpService.sendBatch(List.copyOf(jobs.keySet())))
+                .onErrorResume(e -> Mono.just(allFailed(jobs.keySet(), e)))
+                .flatMapMany(failed -> Flux.fromIterable(failed.entrySet()))
+                .concatMap(failure -> reschedule(failure.getKey(), failure.getValue()))
+                .then(redis.opsForStream().acknowledge(RedisKeyConstants.EMAIL_OUTBOX, GROUP, ids))
+                .then(redis.opsForStream().delete(RedisKeyConstants.EMAIL_OUTBOX, ids))
+                .thenReturn(records.size());
+    }
+
+    private static Map<EmailJob, Exception> allFailed(Iterable<EmailJob> jobs, Throwable error) {
+        Exception cause = error instanceof Exception ex ? ex : new IllegalStateException(error);
+        Map<EmailJob, Exception> failed = new LinkedHashMap<>();
+        jobs.forEach(job -> failed.put(job, cause));
+        return failed;
+    }
+
+    private Mono<Void> reschedule(EmailJob job, Exception cause) {
+        EmailJob next = job.nextAttempt();
+        if (next.attempt() >= maxAttempts) {
+            log.error("Giving up on {} email {} to {} after {} attempts: {}",
+                    job.type(), job.id(), job.to(), next.attempt(), cause.getMessage());
+            // Kept for inspection only: the OTP itself must not outlive the attempt to deliver it
+            Map<String, String> fields = new HashMap<>(next.toFields());
+            fields.remove("code");
+            fields.put("error", String.valueOf(cause.getMessage()));
+            return redis.opsForStream()
+                    .add(StreamRecords.mapBacked(fields).withStreamKey(RedisKeyConstants.EMAIL_OUTBOX_DEAD),
+                            XAddOptions.maxlen(deadMaxLength).approximateTrimming(true))
+                    .then();
+        }
+        long delayMs = Math.min(backoffMaxMs, backoffInitialMs << Math.min(next.attempt() - 1, 30));
+        log.warn("Retrying {} email {} to {} in {} ms (attempt {}): {}",
+                job.type(), job.id(), job.to(), delayMs, next.attempt(), cause.getMessage());
+        return redis.opsForZSet()
+                .add(RedisKeyConstants.EMAIL_OUTBOX_RETRY, toJson(next), System.currentTimeMillis() + delayMs)
+                .then();
+    }
+
+    private String toJson(EmailJob job) {
+        try {
+            return objectMapper.writeValueAsString(job);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private EmailJob fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, EmailJob.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
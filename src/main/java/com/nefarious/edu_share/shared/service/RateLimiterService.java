@@ -1,53 +1,81 @@
 package com.nefarious.edu_share.shared.service;
 
+import com.nefarious.edu_share.shared.interfaces.RateLimitEngine;
+import com.nefarious.edu_share.shared.ratelimit.LocalPreLimiter;
 import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import com.nefarious.edu_share.shared.utils.enums.RateLimitAlgorithm;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.core.env.Environment;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /** Service for rate limiting using Redis */
 @Service
 @RequiredArgsConstructor
 public class RateLimiterService {
+    private static final String PROPERTY_PREFIX = "rate-limit";
+    private static final long DEFAULT_LIMIT = 3;
+
     private final ReactiveStringRedisTemplate redis;
     private final Environment env;
+    private final List<RateLimitEngine> engines;
+    private final LocalPreLimiter localPreLimiter;
     private Duration WINDOW;
+    private Map<String, Long> limits;
+    private Map<RateLimitAlgorithm, RateLimitEngine> enginesByAlgorithm;
 
     @PostConstruct
     void init() {
         long minutes = Long.parseLong(env.getProperty("rate-limit.cooldown", "15"));
         this.WINDOW = Duration.ofMinutes(minutes);
+
+        // Parse every rate-limit.* threshold once at startup instead of on each call
+        Map<String, Long> parsed = new HashMap<>();
+        Binder.get(env)
+                .bind(PROPERTY_PREFIX, Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of())
+                .forEach((name, value) -> {
+                    try {
+                        parsed.put(PROPERTY_PREFIX + "." + name, Long.parseLong(value.trim()));
+                    } catch (NumberFormatException ignored) {
+                        // not a threshold
+                    }
+                });
+        this.limits = Map.copyOf(parsed);
+
+        Map<RateLimitAlgorithm, RateLimitEngine> byAlgorithm = new EnumMap<>(RateLimitAlgorithm.class);
+        engines.forEach(engine -> byAlgorithm.put(engine.algorithm(), engine));
+        this.enginesByAlgorithm = byAlgorithm;
     }
 
     /**
      * Attempt to acquire a “permit” for the given key.
      *
-     * <p>Each call increments a Redis counter with TTL = WINDOW on first use.
-     * Returns Mono<Boolean> indicating whether the count is still ≤ configured limit.
+     * <p>Calls are first checked against this node's {@link LocalPreLimiter}, which sheds floods without
+     * touching Redis. Admitted calls then run one atomic server-side operation of the chosen
+     * {@link RateLimitAlgorithm}, with the configured limit per WINDOW.
      *
      * @param key           fully‐resolved Redis key (e.g. "signin:foo@bar.com")
      * @param propertyName  property name, e.g. "rate-limit.login-attempts"
+     * @param algorithm     {@link RateLimitAlgorithm} used to count calls
      * @return Mono that emits true if under limit, false if exceeded
      */
-    public Mono<Boolean> tryAcquire(String key, String propertyName) {
-        int limit = Integer.parseInt(env.getProperty(propertyName, "3"));
+    public Mono<Boolean> tryAcquire(String key, String propertyName, RateLimitAlgorithm algorithm) {
+        long limit = limits.getOrDefault(propertyName, DEFAULT_LIMIT);
         String redisKey = RedisKeyConstants.RATE_LIMIT + ":" + key;
-
-        return redis.opsForValue()
-                .increment(redisKey)
-                .flatMap(count -> {
-                    if (count == 1) {
-                        return redis.expire(redisKey, WINDOW).thenReturn(true);     // first hit
-                    } else if (count <= limit) {
-                        return Mono.just(true);                                      // within limit, don't reset TTL
-                    } else {
-                        return redis.expire(redisKey, WINDOW).thenReturn(false);    // exceeded limit → reset cooldown TTL
-                    }
-                });
+        if (!localPreLimiter.tryAcquire(redisKey, limit, WINDOW)) {
+            return Mono.just(false);
+        }
+        return enginesByAlgorithm.get(algorithm).tryAcquire(redisKey, limit, WINDOW);
     }
 
     /**
@@ -58,6 +86,7 @@ public class RateLimiterService {
      */
     public Mono<Void> reset(String key) {
         String redisKey = RedisKeyConstants.RATE_LIMIT + ":" + key;
+        localPreLimiter.reset(redisKey);
         return redis.delete(redisKey).then();
     }
 }
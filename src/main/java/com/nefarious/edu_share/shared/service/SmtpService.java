@@ -1,49 +1,120 @@
 package com.nefarious.edu_share.shared.service;
 
-import com.nefarious.edu_share.auth.util.enums.AuthError;
-import com.nefarious.edu_share.shared.exceptions.BusinessException;
-import com.nefarious.edu_share.shared.interfaces.EmailService;
+import com.nefarious.edu_share.shared.dto.EmailJob;
+import com.nefarious.edu_share.shared.utils.EmailTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders and delivers {@link EmailJob}s over SMTP. Used by {@link EmailOutboxWorker}; requests enqueue through
+ * {@link EmailOutboxService} and never wait on SMTP.
+ * <p>
+ * Batches go out over a transport from {@link SmtpTransportPool}, and templates are compiled once so rendering
+ * only concatenates the code in.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class SmtpService implements EmailService {
-    private final JavaMailSender mailSender;
+public class SmtpService {
+    private static final String CHARSET = StandardCharsets.UTF_8.name();
+    private static final EmailTemplate OTP_TEMPLATE = EmailTemplate.compile("Your Verification Code", """
+            <p>Hello,</p>
+            <p>Your one-time code is <b>{{code}}</b></p>
+            <p>This code expires in 10 minutes.</p>
+            """, "{{code}}");
+
+    private final SmtpTransportPool transportPool;
     @Value("${spring.mail.username}")
     private String from;
 
-    @Override
-    public Mono<Void> sendOtpEmail(String to, String otpCode) throws BusinessException {
-        return Mono.fromRunnable(() -> {
-            MimeMessage message = mailSender.createMimeMessage();
+    private InternetAddress fromAddress;
+
+    @PostConstruct
+    void init() throws AddressException {
+        fromAddress = new InternetAddress(from);
+    }
+
+    /**
+     * Send a batch of emails over a single pooled SMTP connection. Blocking: call from a worker thread.
+     *
+     * @param jobs emails to send
+     * @return jobs that could not be sent, with the cause; empty if all were accepted by the server
+     */
+    public Map<EmailJob, Exception> sendBatch(List<EmailJob> jobs) {
+        Map<EmailJob, Exception> failed = new LinkedHashMap<>();
+        List<EmailJob> rendered = new ArrayList<>(jobs.size());
+        List<MimeMessage> messages = new ArrayList<>(jobs.size());
+        for (EmailJob job : jobs) {
             try {
-                MimeMessageHelper helper = new MimeMessageHelper(message, "utf-8");
-                helper.setFrom(from);
-                helper.setTo(to);
-                helper.setSubject("Your Verification Code");
-                String html = """
-                <p>Hello,</p>
-                <p>Your one-time code is <b>%s</b></p>
-                <p>This code expires in 10 minutes.</p>
-                """.formatted(otpCode);
-                helper.setText(html, true);
-                mailSender.send(message);
+                messages.add(render(job));
+                rendered.add(job);
             } catch (MessagingException ex) {
-                log.error("Failed to send OTP to {}: {}", to, ex.getMessage());
-                throw new BusinessException(AuthError.FAILED_TO_SEND_OTP);
+                failed.put(job, ex);
             }
-        })
-        .subscribeOn(Schedulers.boundedElastic()) // run on a thread‐pool for blocking tasks
-        .then();
+        }
+        if (messages.isEmpty()) {
+            return failed;
+        }
+
+        Transport transport;
+        try {
+            transport = transportPool.borrow();
+        } catch (MessagingException ex) {
+            rendered.forEach(job -> failed.put(job, ex));
+            return failed;
+        }
+        boolean reusable = true;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                try {
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (SendFailedException ex) {
+                    // Recipient rejected; the connection itself is fine
+                    failed.put(rendered.get(i), ex);
+                } catch (MessagingException | IllegalStateException ex) {
+                    // Connection broke: fail the rest of the batch so the outbox retries it
+                    reusable = false;
+                    for (int j = i; j < messages.size(); j++) {
+                        failed.put(rendered.get(j), ex);
+                    }
+                    break;
+                }
+            }
+        } finally {
+            transportPool.release(transport, reusable);
+        }
+        return failed;
+    }
+
+    private MimeMessage render(EmailJob job) throws MessagingException {
+        EmailTemplate template = switch (job.type()) {
+            case OTP -> OTP_TEMPLATE;
+        };
+        MimeMessage message = new MimeMessage(transportPool.getSession());
+        message.setFrom(fromAddress);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(job.to()));
+        message.setSubject(template.subject(), CHARSET);
+        message.setText(template.render(job.code()), CHARSET, "html");
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
     }
 }
@@ -0,0 +1,144 @@
+package com.nefarious.edu_share.shared.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of connected, authenticated SMTP {@link Transport}s built from the Spring mail settings, so a batch of emails
+ * skips the TCP, STARTTLS and AUTH round trips.
+ * <p>
+ * At most {@code smtp-pool.max-size} transports exist at once. A pooled transport is health-checked (SMTP NOOP) when
+ * it is borrowed, and closed once idle for {@code smtp-pool.idle-timeout-ms}, before the server drops it.
+ * Borrowing is blocking: call it from a worker thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SmtpTransportPool {
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${smtp-pool.max-size}")
+    private int maxSize;
+
+    @Value("${smtp-pool.idle-timeout-ms}")
+    private long idleTimeoutMs;
+
+    @Value("${smtp-pool.borrow-timeout-ms}")
+    private long borrowTimeoutMs;
+
+    /** Most recently used first, so rarely needed transports sink to the tail and age out */
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private Semaphore permits;
+    private Disposable evictor;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxSize);
+        evictor = Flux.interval(Duration.ofMillis(Math.max(1_000, idleTimeoutMs / 2)))
+                .subscribe(tick -> evictIdle());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        evictor.dispose();
+        PooledTransport pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closeQuietly(pooled.transport());
+        }
+    }
+
+    /** Mail session the pooled transports belong to, for building messages */
+    public Session getSession() {
+        return mailSender.getSession();
+    }
+
+    /**
+     * Take a connected transport, reusing an idle one when it is still healthy.
+     * Every borrowed transport must be handed back with {@link #release(Transport, boolean)}.
+     *
+     * @throws MessagingException if none frees up within {@code smtp-pool.borrow-timeout-ms} or connecting fails
+     */
+    public Transport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection available within " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", ex);
+        }
+        try {
+            PooledTransport pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (pooled.transport().isConnected()) {
+                    return pooled.transport();
+                }
+                closeQuietly(pooled.transport());
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Hand a borrowed transport back.
+     * @param transport the transport from {@link #borrow()}
+     * @param reusable  false after a connection-level error, so the transport is closed instead of pooled
+     */
+    public void release(Transport transport, boolean reusable) {
+        try {
+            if (reusable) {
+                idle.offerFirst(new PooledTransport(transport, System.nanoTime()));
+            } else {
+                closeQuietly(transport);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    /** Close transports idle for longer than the timeout, oldest first. */
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        PooledTransport oldest;
+        while ((oldest = idle.peekLast()) != null && oldest.lastUsedNanos() - cutoff < 0) {
+            if (idle.removeLastOccurrence(oldest)) {
+                closeQuietly(oldest.transport());
+            }
+        }
+    }
+
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException ex) {
+            log.debug("Failed to close SMTP transport: {}", ex.getMessage());
+        }
+    }
+
+    private record PooledTransport(Transport transport, long lastUsedNanos) {}
+}
@@ -0,0 +1,28 @@
+package com.nefarious.edu_share.shared.utils;
+
+/**
+ * An email body compiled once into the text around its single placeholder, so rendering is one concatenation.
+ * @param subject subject line
+ * @param prefix  body text before the placeholder
+ * @param suffix  body text after the placeholder
+ */
+public record EmailTemplate(String subject, String prefix, String suffix) {
+
+    /**
+     * @param subject     subject line
+     * @param body        body containing {@code placeholder} exactly once
+     * @param placeholder marker replaced on render, e.g. "{{code}}"
+     */
+    public static EmailTemplate compile(String subject, String body, String placeholder) {
+        int at = body.indexOf(placeholder);
+        if (at < 0 || body.indexOf(placeholder, at + 1) >= 0) {
+            throw new IllegalArgumentException("Template must contain " + placeholder + " exactly once");
+        }
+        return new EmailTemplate(subject, body.substring(0, at), body.substring(at + placeholder.length()));
+    }
+
+    /** Body with the placeholder replaced by {@code value} */
+    public String render(String value) {
+        return prefix + value + suffix;
+    }
+}
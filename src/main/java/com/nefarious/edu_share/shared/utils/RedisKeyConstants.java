@@ -9,11 +9,17 @@ public class RedisKeyConstants {
     /** Prefix for Redis keys tracking login attempts for rate limiting. */
     public static final String SIGNIN = "signin";
 
-    /** Prefix for Redis keys storing one-time passwords (OTP) by email. */
+    /** Prefix for Redis hashes storing one-time passwords (OTP) and their failed attempts by email. */
     public static final String OTP = "otp";
 
-    /** Prefix for Redis keys tracking OTP verification attempts for rate limiting. */
-    public static final String OTP_VERIFY = "otp_verify";
+    /** Prefix for Redis keys holding the issue counter of the last consumed stateless OTP by email. */
+    public static final String OTP_USED = "otp-used";
+
+    /** Prefix for Redis counters of stateless OTPs issued by email, mixed into each derived code. */
+    public static final String OTP_ISSUED = "otp-issued";
+
+    /** Prefix for Redis counters of failed attempts at the latest stateless OTP by email. */
+    public static final String OTP_ATTEMPTS = "otp-attempts";
 
     /** Prefix for Redis keys tracking forgot-password attempts for rate limiting. */
     public static final String FORGOT_PASSWORD = "forgot-password";
@@ -24,9 +30,42 @@ public class RedisKeyConstants {
     /** Prefix for Redis keys storing active refresh tokens (used for session refresh and revocation). */
     public static final String REFRESH_TOKEN = "refresh";
 
-    /** Prefix for Redis keys mapping a user to all their active session tokens (used for invalidating all sessions). */
+    /** Prefix for Redis sorted sets indexing a user's active sessions by expiry (used for session caps). */
     public static final String USER_SESSIONS = "user-sessions";
 
+    /** Prefix for Redis keys holding the session generation a user's session index was written under. */
+    public static final String USER_SESSIONS_GENERATION = "user-sessions-gen";
+
     /** Prefix for Redis keys used in rate limiting (combined with above types like signin, otp, etc.). */
     public static final String RATE_LIMIT = "rate-limit";
+
+    /** Prefix for Redis counters holding a user's session generation; tokens issued under an older one are invalid. */
+    public static final String SESSION_GENERATION = "session-gen";
+
+    /** Pub/sub channel broadcasting new session generations so every node updates its cached copy. */
+    public static final String SESSION_GENERATION_CHANGED = "session-gen-changed";
+
+    /** Pub/sub channel broadcasting revoked tokens and users so every node can drop its cached sessions. */
+    public static final String SESSION_INVALIDATION = "session-invalidation";
+
+    /** Sorted set of revoked access-token IDs (jti) scored by token expiry, loaded when a node rebuilds its revocation filter. */
+    public static final String REVOKED_TOKENS = "revoked-tokens";
+
+    /** Sorted set of revoked access-token IDs (jti) scored by revocation time, pulled by each node's periodic sync. */
+    public static final String REVOKED_TOKENS_RECENT = "revoked-tokens-recent";
+
+    /** Prefix for Redis keys tracking availability checks for rate limiting. */
+    public static final String AVAILABILITY = "availability";
+
+    /** Pub/sub channel broadcasting newly taken emails and usernames so every node adds them to its availability filter. */
+    public static final String TAKEN_IDENTIFIERS = "taken-identifiers";
+
+    /** Stream of emails waiting to be sent, drained by the outbox workers through a consumer group. */
+    public static final String EMAIL_OUTBOX = "email-outbox";
+
+    /** Sorted set of failed emails scored by the time of their next attempt. */
+    public static final String EMAIL_OUTBOX_RETRY = "email-outbox-retry";
+
+    /** Stream of emails that failed every attempt, kept for inspection. */
+    public static final String EMAIL_OUTBOX_DEAD = "email-outbox-dead";
 }
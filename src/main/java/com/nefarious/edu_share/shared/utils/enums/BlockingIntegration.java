@@ -0,0 +1,16 @@
+package com.nefarious.edu_share.shared.utils.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Integrations whose clients block, each with its own concurrency limit under {@code blocking-io.<value>.*}
+ * <br>
+ * SMTP: JavaMail transport calls
+ */
+@AllArgsConstructor
+@Getter
+public enum BlockingIntegration {
+    SMTP("smtp");
+    private final String value;
+}
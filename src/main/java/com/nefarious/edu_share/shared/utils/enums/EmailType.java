@@ -0,0 +1,6 @@
+package com.nefarious.edu_share.shared.utils.enums;
+
+/** Kinds of email the outbox can deliver; each maps to one template in {@link com.nefarious.edu_share.shared.service.SmtpService} */
+public enum EmailType {
+    OTP
+}
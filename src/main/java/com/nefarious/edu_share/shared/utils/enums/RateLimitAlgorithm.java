@@ -0,0 +1,14 @@
+package com.nefarious.edu_share.shared.utils.enums;
+
+/**
+ * Rate limiting algorithms selectable per {@link com.nefarious.edu_share.shared.annotation.RateLimiter}
+ * <br>
+ * FIXED_WINDOW: counter per cooldown window, exceeding the limit restarts the cooldown
+ * <br>
+ * SLIDING_LOG: at most limit calls in any trailing window, no bursts at window edges
+ * <br>
+ * GCRA: token bucket, bursts of up to limit then one call per window/limit
+ */
+public enum RateLimitAlgorithm {
+    FIXED_WINDOW, SLIDING_LOG, GCRA
+}
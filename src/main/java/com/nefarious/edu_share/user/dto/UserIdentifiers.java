@@ -0,0 +1,6 @@
+package com.nefarious.edu_share.user.dto;
+
+import java.util.UUID;
+
+/** Projection of the unique identifiers of a user, used to page through the users table cheaply */
+public record UserIdentifiers(UUID id, String email, String username) {}
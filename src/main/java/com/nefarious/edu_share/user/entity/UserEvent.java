@@ -0,0 +1,40 @@
+package com.nefarious.edu_share.user.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** A user lifecycle event in the outbox, written in the same transaction as the change it describes */
+@Table(name = "user_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserEvent {
+    /** Primary key: sequence, gives the publish order */
+    @Id
+    @Column("id")
+    private Long id;
+
+    /** User the event is about; also the partition key, so a user's events stay ordered */
+    @Column("user_id")
+    private UUID userId;
+
+    /** One of {@link com.nefarious.edu_share.user.util.enums.UserEventType} */
+    @Column("event_type")
+    private String eventType;
+
+    /** Event body as JSON */
+    @Column("payload")
+    private String payload;
+
+    @Column("created_at")
+    private Instant createdAt;
+}
@@ -0,0 +1,54 @@
+package com.nefarious.edu_share.user.event;
+
+import com.nefarious.edu_share.shared.interfaces.UserEventPublisher;
+import com.nefarious.edu_share.user.entity.UserEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recently published user events in memory, for tests and local runs without a broker.
+ * Only the last {@code user-events.in-memory-capacity} events are retained, so it must never be enabled where
+ * the events matter: the relay deletes outbox rows as soon as they are published here.
+ */
+@Component
+@ConditionalOnProperty(name = "user-events.publisher", havingValue = "in-memory")
+public class InMemoryUserEventPublisher implements UserEventPublisher {
+    private final Deque<UserEvent> events = new ArrayDeque<>();
+
+    @Value("${user-events.in-memory-capacity}")
+    private int capacity;
+
+    @Override
+    public Mono<Void> publish(List<UserEvent> batch) {
+        return Mono.fromRunnable(() -> {
+            synchronized (events) {
+                for (UserEvent event : batch) {
+                    events.addLast(event);
+                    if (events.size() > capacity) {
+                        events.removeFirst();
+                    }
+                }
+            }
+        });
+    }
+
+    /** Events published so far, oldest first */
+    public List<UserEvent> getPublished() {
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+
+    /** Forget every published event */
+    public void clear() {
+        synchronized (events) {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.nefarious.edu_share.user.event;
+
+import com.nefarious.edu_share.shared.interfaces.UserEventPublisher;
+import com.nefarious.edu_share.user.entity.UserEvent;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes user events to Kafka, keyed by user id so each user's events land on one partition in order.
+ * A batch completes when the broker has acknowledged every record.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "user-events.publisher", havingValue = "kafka")
+public class KafkaUserEventPublisher implements UserEventPublisher {
+    private static final String EVENT_TYPE_HEADER = "event-type";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${user-events.topic}")
+    private String topic;
+
+    @Override
+    public Mono<Void> publish(List<UserEvent> events) {
+        return Mono.defer(() -> {
+            CompletableFuture<?>[] sends = events.stream()
+                    .map(event -> {
+                        ProducerRecord<String, String> record =
+                                new ProducerRecord<>(topic, event.getUserId().toString(), event.getPayload());
+                        record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+                        return kafkaTemplate.send(record);
+                    })
+                    .toArray(CompletableFuture[]::new);
+            return Mono.fromFuture(CompletableFuture.allOf(sends));
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.nefarious.edu_share.user.event;
+
+import com.nefarious.edu_share.shared.interfaces.UserEventPublisher;
+import com.nefarious.edu_share.user.entity.UserEvent;
+import com.nefarious.edu_share.user.repository.UserEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the {@code user_events} outbox into the configured {@link UserEventPublisher}.
+ * <p>
+ * A batch is claimed in a short transaction holding a Postgres advisory lock, and only while no other claim is live,
+ * so a single batch is in flight across nodes and events leave in id order. It is then published with no transaction
+ * or lock held, however long the broker takes to acknowledge, and its rows are deleted afterwards. If publishing
+ * fails the claim is released and the batch is retried on the next poll; if the relay dies, another node takes the
+ * batch over once {@code user-events.claim-lease-ms} has passed (at-least-once).
+ * The next batch is only read after the previous one is confirmed, so a slow broker slows the relay instead of
+ * piling up in memory. Lag ({@code user.events.outbox.lag}) is the age of the oldest unpublished event.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserEventRelay {
+    /** Advisory lock key shared by every node, arbitrary but fixed */
+    private static final long RELAY_LOCK_KEY = 0x75736572L;
+
+    private final UserEventRepository userEventRepository;
+    private final UserEventPublisher publisher;
+    private final TransactionalOperator transactionalOperator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user-events.batch-size}")
+    private int batchSize;
+
+    @Value("${user-events.poll-interval-ms}")
+    private long pollIntervalMs;
+
+    @Value("${user-events.claim-lease-ms}")
+    private long claimLeaseMs;
+
+    private final AtomicLong lagMs = new AtomicLong();
+    private Counter published;
+    private Timer publishTimer;
+    private Disposable relay;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("user.events.outbox.lag", lagMs, AtomicLong::get)
+                .description("Age of the oldest unpublished user event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        published = Counter.builder("user.events.published")
+                .description("User events published from the outbox")
+                .register(meterRegistry);
+        publishTimer = Timer.builder("user.events.publish")
+                .description("Time to publish one outbox batch")
+                .register(meterRegistry);
+
+        relay = Flux.interval(Duration.ofMillis(pollIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> drain()
+                        .then(updateLag())
+                        .onErrorResume(e -> {
+                            log.warn("User event relay failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (relay != null) {
+            relay.dispose();
+        }
+    }
+
+    /** Relay full batches until the outbox is empty or another node holds the lock. */
+    private Mono<Void> drain() {
+        return relayBatch()
+                .expand(relayed -> relayed < batchSize ? Mono.empty() : relayBatch())
+                .then();
+    }
+
+    private Mono<Integer> relayBatch() {
+        return claimBatch()
+                .filter(events -> !events.isEmpty())
+                .flatMap(this::publishAndDelete)
+                .defaultIfEmpty(0);
+    }
+
+    /** Claim the next batch in id order; the transaction and its advisory lock end before anything is published. */
+    private Mono<List<UserEvent>> claimBatch() {
+        return userEventRepository.tryRelayLock(RELAY_LOCK_KEY)
+                .filter(Boolean::booleanValue)
+                .flatMap(locked -> userEventRepository.claimBatch(batchSize, claimLeaseMs)
+                        .sort(Comparator.comparing(UserEvent::getId))
+                        .collectList())
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Integer> publishAndDelete(List<UserEvent> events) {
+        long started = System.nanoTime();
+        List<Long> ids = events.stream().map(UserEvent::getId).toList();
+        return publisher.publish(events)
+                .onErrorResume(e -> userEventRepository.releaseClaim(ids.toArray(Long[]::new)).then(Mono.error(e)))
+                // A single statement, so this second transaction is as short as it gets
+                .then(userEventRepository.deleteAllById(ids))
+                .then(Mono.fromSupplier(() -> {
+                    publishTimer.record(Duration.ofNanos(System.nanoTime() - started));
+                    published.increment(events.size());
+                    return events.size();
+                }));
+    }
+
+    private Mono<Void> updateLag() {
+        return userEventRepository.findOldestCreatedAt()
+                .map(oldest -> Duration.between(oldest, Instant.now()).toMillis())
+                .defaultIfEmpty(0L)
+                .doOnNext(lagMs::set)
+                .then();
+    }
+}
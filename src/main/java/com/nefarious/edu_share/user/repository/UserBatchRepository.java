@@ -0,0 +1,19 @@
+package com.nefarious.edu_share.user.repository;
+
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
+import com.nefarious.edu_share.user.entity.User;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/** Multi-row writes to users that derived queries cannot express; mixed into {@link UserRepository} */
+public interface UserBatchRepository {
+    /**
+     * Insert all users with one multi-row INSERT, skipping rows whose email or username is already taken
+     * (including by an earlier row of the same batch), and append a CREATED outbox event for each inserted row
+     * in the same statement.
+     * @param users unsaved users with encoded passwords
+     * @return Flux emitting the identifiers of the rows actually inserted
+     */
+    Flux<UserIdentifiers> insertAllSkippingTaken(List<User> users);
+}
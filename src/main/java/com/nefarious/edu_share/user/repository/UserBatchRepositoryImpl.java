@@ -0,0 +1,67 @@
+package com.nefarious.edu_share.user.repository;
+
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
+import com.nefarious.edu_share.user.entity.User;
+import com.nefarious.edu_share.user.util.enums.UserEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class UserBatchRepositoryImpl implements UserBatchRepository {
+    /**
+     * The events CTE writes the same payload as UserService.createUser does through the outbox,
+     * so both signup paths publish identical CREATED events.
+     */
+    private static final String INSERT_SQL = """
+            WITH inserted AS (
+                INSERT INTO users (email, username, password, first_name, last_name, date_of_birth)
+                VALUES %s
+                ON CONFLICT DO NOTHING
+                RETURNING id, email, username, first_name, last_name
+            ), events AS (
+                INSERT INTO user_events (user_id, event_type, payload)
+                SELECT id, :eventType, json_build_object(
+                    'email', email, 'username', username, 'firstName', first_name, 'lastName', last_name)::text
+                FROM inserted
+            )
+            SELECT id, email, username FROM inserted
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<UserIdentifiers> insertAllSkippingTaken(List<User> users) {
+        if (users.isEmpty()) {
+            return Flux.empty();
+        }
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < users.size(); i++) {
+            values.append(i == 0 ? "" : ", ")
+                    .append("(:email").append(i)
+                    .append(", :username").append(i)
+                    .append(", :password").append(i)
+                    .append(", :firstName").append(i)
+                    .append(", :lastName").append(i)
+                    .append(", :dateOfBirth").append(i)
+                    .append(')');
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_SQL.formatted(values))
+                .bind("eventType", UserEventType.CREATED.name());
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            spec = spec.bind("email" + i, user.getEmail())
+                    .bind("username" + i, user.getUsername())
+                    .bind("password" + i, user.getPassword())
+                    .bind("firstName" + i, user.getFirstName())
+                    .bind("lastName" + i, user.getLastName())
+                    .bind("dateOfBirth" + i, user.getDateOfBirth());
+        }
+        return spec.map((row, metadata) -> new UserIdentifiers(
+                        row.get("id", UUID.class), row.get("email", String.class), row.get("username", String.class)))
+                .all();
+    }
+}
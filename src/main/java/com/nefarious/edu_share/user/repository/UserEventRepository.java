@@ -0,0 +1,51 @@
+package com.nefarious.edu_share.user.repository;
+
+import com.nefarious.edu_share.user.entity.UserEvent;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface UserEventRepository extends ReactiveCrudRepository<UserEvent, Long> {
+    /**
+     * Take the transaction-scoped advisory lock that makes one relay at a time publish the outbox.
+     * @param key lock key shared by every node
+     * @return Mono emitting true if this transaction holds the lock
+     */
+    @Query("SELECT pg_try_advisory_xact_lock(:key)")
+    Mono<Boolean> tryRelayLock(long key);
+
+    /**
+     * Claim the oldest unpublished events for {@code leaseMs}, unless a claim of any relay is still live, so a single
+     * batch is in flight at a time and events leave in id order. Run it in the transaction holding the relay lock.
+     * @param limit   batch size
+     * @param leaseMs how long the claim holds before another relay may take the rows over
+     * @return Flux emitting up to {@code limit} claimed events, in no particular order
+     */
+    @Query("""
+            UPDATE user_events SET claimed_until = now() + :leaseMs * interval '1 millisecond'
+            WHERE id IN (SELECT id FROM user_events ORDER BY id LIMIT :limit)
+              AND NOT EXISTS (SELECT 1 FROM user_events WHERE claimed_until > now())
+            RETURNING *
+            """)
+    Flux<UserEvent> claimBatch(int limit, long leaseMs);
+
+    /**
+     * Give up a claim, so the next poll retries the events instead of waiting for the lease to run out.
+     * @param ids ids of the claimed events
+     * @return Mono emitting the number of released rows
+     */
+    @Modifying
+    @Query("UPDATE user_events SET claimed_until = NULL WHERE id = ANY(:ids)")
+    Mono<Integer> releaseClaim(Long[] ids);
+
+    /**
+     * Creation time of the oldest unpublished event, used to report relay lag.
+     * @return Mono emitting the timestamp, or empty when the outbox is drained
+     */
+    @Query("SELECT created_at FROM user_events ORDER BY id LIMIT 1")
+    Mono<Instant> findOldestCreatedAt();
+}
@@ -1,12 +1,16 @@
 package com.nefarious.edu_share.user.repository;
 
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
 import com.nefarious.edu_share.user.entity.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
-public interface UserRepository extends ReactiveCrudRepository<User, UUID> {
+public interface UserRepository extends ReactiveCrudRepository<User, UUID>, UserBatchRepository {
     /**
      * Find a user by email (case-sensitive).
      * @param email the email to look up
@@ -20,5 +24,64 @@ public interface UserRepository extends ReactiveCrudRepository<User, UUID> {
      * @return Mono emitting the User if found, or empty if not
      */
     Mono<User> findByUsername(String username);
-}
 
+    /**
+     * Check whether an email is registered without loading the row.
+     * @param email the email to look up
+     * @return Mono emitting true if a user has this email
+     */
+    Mono<Boolean> existsByEmail(String email);
+
+    /**
+     * Check whether a username is taken without loading the row.
+     * @param username the username to look up
+     * @return Mono emitting true if a user has this username
+     */
+    Mono<Boolean> existsByUsername(String username);
+
+    /**
+     * Flag a user's email as verified, writing only that column.
+     * @param email the verified email
+     * @return Mono emitting the user's id, or empty if no user has this email
+     */
+    @Query("UPDATE users SET is_email_verified = true WHERE email = :email RETURNING id")
+    Mono<UUID> markEmailVerified(String email);
+
+    /**
+     * Set a new password hash, writing only that column.
+     * @param email    the user's email
+     * @param password the new hash
+     * @return Mono emitting the user's id, or empty if no user has this email
+     */
+    @Query("UPDATE users SET password = :password WHERE email = :email RETURNING id")
+    Mono<UUID> updatePassword(String email, String password);
+
+    /**
+     * Replace a password hash only if it is still the one that was read, so a concurrent password change wins.
+     * @param id          the user's id
+     * @param oldPassword the hash that was read
+     * @param newPassword the replacement hash
+     * @return Mono emitting the number of updated rows (0 or 1)
+     */
+    @Modifying
+    @Query("UPDATE users SET password = :newPassword WHERE id = :id AND password = :oldPassword")
+    Mono<Integer> replacePassword(UUID id, String oldPassword, String newPassword);
+
+    /**
+     * Keyset-paged scan of user identifiers, ordered by id.
+     * @param afterId id of the last row of the previous page; the nil UUID for the first page
+     * @param limit   page size
+     * @return Flux emitting up to {@code limit} identifiers with id greater than {@code afterId}
+     */
+    @Query("SELECT id, email, username FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<UserIdentifiers> findIdentifiersAfter(UUID afterId, int limit);
+
+    /**
+     * Find the users holding any of the given emails or usernames.
+     * @param emails    emails to look up
+     * @param usernames usernames to look up
+     * @return Flux emitting the identifiers of every matching user
+     */
+    @Query("SELECT id, email, username FROM users WHERE email = ANY(:emails) OR username = ANY(:usernames)")
+    Flux<UserIdentifiers> findTakenIdentifiers(String[] emails, String[] usernames);
+}
@@ -0,0 +1,171 @@
+package com.nefarious.edu_share.user.service;
+
+import com.nefarious.edu_share.shared.utils.BloomFilter;
+import com.nefarious.edu_share.shared.utils.RedisKeyConstants;
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
+import com.nefarious.edu_share.user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Answers "is this email/username still free?" for the signup form without touching the database in the common case.
+ * <p>
+ * Each node keeps a {@link BloomFilter} of taken identifiers. A "definitely absent" answer is returned directly;
+ * only "maybe taken" falls through to an existence query. The filter is rebuilt from the users table at startup and
+ * every {@code availability.rebuild-interval-ms} by keyset-paging the rows, and new signups are broadcast on
+ * {@link RedisKeyConstants#TAKEN_IDENTIFIERS} so every node adds them. An add that is missed only makes the answer
+ * optimistic until the next rebuild: signup itself is still guarded by the UNIQUE constraints.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AvailabilityService {
+    private static final String EMAIL_PREFIX    = "email:";
+    private static final String USERNAME_PREFIX = "username:";
+    /** Sorts before every generated id, so the first page starts at the beginning of the table */
+    private static final UUID FIRST_PAGE = new UUID(0L, 0L);
+
+    private final UserRepository userRepository;
+    private final ReactiveStringRedisTemplate redis;
+
+    @Value("${availability.expected-identifiers}")
+    private long expectedIdentifiers;
+
+    @Value("${availability.false-positive-rate}")
+    private double falsePositiveRate;
+
+    @Value("${availability.page-size}")
+    private int pageSize;
+
+    @Value("${availability.rebuild-interval-ms}")
+    private long rebuildIntervalMs;
+
+    /** Null until the first rebuild completes; until then every check goes to the database */
+    private volatile BloomFilter filter;
+    /** Filter being rebuilt, so identifiers taken during the scan are not lost when it is swapped in */
+    private volatile BloomFilter rebuilding;
+    private Disposable subscription;
+    private Disposable rebuilds;
+
+    @PostConstruct
+    void init() {
+        subscription = redis.listenToChannel(RedisKeyConstants.TAKEN_IDENTIFIERS)
+                .doOnNext(message -> addLocally(message.getMessage()))
+                .doOnError(e -> log.warn("Taken identifiers channel dropped: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+        rebuilds = Flux.interval(Duration.ZERO, Duration.ofMillis(rebuildIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(e -> {
+                            log.warn("Availability filter rebuild failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (rebuilds != null) {
+            rebuilds.dispose();
+        }
+    }
+
+    /**
+     * @param email the email to check
+     * @return Mono emitting true if no user has this email
+     */
+    public Mono<Boolean> isEmailAvailable(String email) {
+        return isAvailable(EMAIL_PREFIX + email, () -> userRepository.existsByEmail(email));
+    }
+
+    /**
+     * @param username the username to check
+     * @return Mono emitting true if no user has this username
+     */
+    public Mono<Boolean> isUsernameAvailable(String username) {
+        return isAvailable(USERNAME_PREFIX + username, () -> userRepository.existsByUsername(username));
+    }
+
+    /**
+     * Add the identifiers of a new user on this node and broadcast them to the others.
+     * @param email    the new user's email
+     * @param username the new user's username
+     */
+    public Mono<Void> recordTaken(String email, String username) {
+        return Flux.just(EMAIL_PREFIX + email, USERNAME_PREFIX + username)
+                .doOnNext(this::addLocally)
+                .concatMap(identifier -> redis.convertAndSend(RedisKeyConstants.TAKEN_IDENTIFIERS, identifier))
+                .then();
+    }
+
+    private Mono<Boolean> isAvailable(String identifier, Supplier<Mono<Boolean>> exists) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(identifier)) {
+            return Mono.just(true);
+        }
+        return exists.get().map(taken -> !taken);
+    }
+
+    private void addLocally(String identifier) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(identifier);
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(identifier);
+        }
+    }
+
+    /** Scan the users table page by page into a fresh filter, then swap it in. */
+    private Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            long started = System.currentTimeMillis();
+            BloomFilter fresh = new BloomFilter(expectedIdentifiers, falsePositiveRate);
+            rebuilding = fresh;
+            return loadPage(FIRST_PAGE, fresh)
+                    .expand(page -> page.size() < pageSize
+                            ? Mono.empty()
+                            : loadPage(page.get(page.size() - 1).id(), fresh))
+                    .map(page -> (long) page.size())
+                    .reduce(0L, Long::sum)
+                    .doOnNext(users -> {
+                        filter = fresh;
+                        log.info("Availability filter rebuilt with {} users in {} ms", users, System.currentTimeMillis() - started);
+                        if (2 * users > expectedIdentifiers) {
+                            log.warn("Availability filter holds {} identifiers, sized for {}; raise availability.expected-identifiers",
+                                    2 * users, expectedIdentifiers);
+                        }
+                    })
+                    .doFinally(signal -> rebuilding = null)
+                    .then();
+        });
+    }
+
+    private Mono<List<UserIdentifiers>> loadPage(UUID afterId, BloomFilter target) {
+        return userRepository.findIdentifiersAfter(afterId, pageSize)
+                .doOnNext(user -> {
+                    target.put(EMAIL_PREFIX + user.email());
+                    target.put(USERNAME_PREFIX + user.username());
+                })
+                .collectList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.nefarious.edu_share.user.service;
+
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing (verify and encode) on a dedicated, CPU-sized pool with a bounded queue,
+ * keeping BCrypt off the Netty event loop and out of the shared boundedElastic pool.
+ * <p>
+ * When the queue is full, calls fail fast with {@link BaseError#SERVICE_BUSY} instead of piling up.
+ * Queue depth, wait time and hash time are exported as {@code password.hashing.*} metrics.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingService {
+    /** Share of the queue optional work (e.g. rehashing) leaves free for sign-ins and sign-ups */
+    private static final int RESERVED_QUEUE_DIVISOR = 4;
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${password-hashing.threads}")
+    private int threads;
+
+    @Value("${password-hashing.queue-capacity}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Timer verifyTimer;
+    private Timer encodeTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Hash requests waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads currently hashing")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("password.hashing.wait")
+                .description("Time a hash request spent queued")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        verifyTimer = hashTimer("verify");
+        encodeTimer = hashTimer("encode");
+        rejected = Counter.builder("password.hashing.rejected")
+                .description("Hash requests rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Check a raw password against a stored hash on the hashing pool.
+     * @param rawPassword     the plaintext password
+     * @param encodedPassword the stored hash
+     * @return Mono emitting true if they match
+     */
+    public Mono<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(verifyTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hash a raw password on the hashing pool.
+     * @param rawPassword the plaintext password
+     * @return Mono emitting the encoded password
+     */
+    public Mono<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether a stored hash uses an older algorithm or a lower cost than new hashes do.
+     * Only parses the hash prefix, so it is cheap enough to call inline.
+     * @param encodedPassword the stored hash
+     * @return true if the password should be rehashed
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Whether the pool can take optional work without pushing sign-ins towards {@link BaseError#SERVICE_BUSY}:
+     * more than a quarter of the queue is still free.
+     * @return true if background hashing may be submitted now
+     */
+    public boolean hasSpareCapacity() {
+        return executor.getQueue().remainingCapacity() > queueCapacity / RESERVED_QUEUE_DIVISOR;
+    }
+
+    private <T> Mono<T> submit(Timer hashTimer, Supplier<T> task) {
+        return Mono.defer(() -> {
+            long enqueuedAt = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    long startedAt = System.nanoTime();
+                    waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        return task.get();
+                    } finally {
+                        hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException ex) {
+                rejected.increment();
+                return Mono.error(new BusinessException(BaseError.SERVICE_BUSY));
+            }
+            return Mono.fromFuture(future);
+        });
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("password.hashing.duration")
+                .description("Time spent computing a password hash")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
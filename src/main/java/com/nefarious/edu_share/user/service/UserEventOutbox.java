@@ -0,0 +1,42 @@
+package com.nefarious.edu_share.user.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nefarious.edu_share.user.entity.UserEvent;
+import com.nefarious.edu_share.user.repository.UserEventRepository;
+import com.nefarious.edu_share.user.util.enums.UserEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Appends user lifecycle events to the {@code user_events} outbox table.
+ * Call it inside the transaction of the change being described; {@link com.nefarious.edu_share.user.event.UserEventRelay}
+ * publishes the rows once committed, so brokers never add latency to the request.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserEventOutbox {
+    private final UserEventRepository userEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param userId  user the event is about
+     * @param type    what happened
+     * @param payload event body, serialised as JSON
+     */
+    public Mono<Void> append(UUID userId, UserEventType type, Map<String, ?> payload) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(payload))
+            .map(json -> UserEvent.builder()
+                .userId(userId)
+                .eventType(type.name())
+                .payload(json)
+                .createdAt(Instant.now())
+                .build())
+            .flatMap(userEventRepository::save)
+            .then();
+    }
+}
@@ -2,82 +2,173 @@ package com.nefarious.edu_share.user.service;
 
 import com.nefarious.edu_share.auth.dto.SigninRequest;
 import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.util.AuthFlowMetrics;
+import com.nefarious.edu_share.auth.util.enums.AuthStage;
 import com.nefarious.edu_share.auth.util.enums.AuthError;
 import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
 import com.nefarious.edu_share.user.entity.User;
 import com.nefarious.edu_share.user.repository.UserRepository;
+import com.nefarious.edu_share.user.util.enums.UserEventType;
+import io.r2dbc.postgresql.api.PostgresqlException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
+    /** Postgres default names of the UNIQUE constraints on users, see DB_Migration_SQL.txt */
+    private static final String EMAIL_CONSTRAINT    = "users_email_key";
+    private static final String USERNAME_CONSTRAINT = "users_username_key";
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final AvailabilityService availabilityService;
+    private final UserEventOutbox userEventOutbox;
+    private final TransactionalOperator transactionalOperator;
+    private final AuthFlowMetrics authFlowMetrics;
 
     /**
      * Creates and persists a new User if email and username are available.
+     * <p>Availability is enforced by the UNIQUE constraints on the INSERT itself (one round trip, no race);
+     * a violation is mapped to {@link AuthError#EMAIL_IN_USE} or {@link AuthError#USERNAME_IN_USE}.
+     * A {@link UserEventType#CREATED} event is written to the outbox in the same transaction.
+     * The new identifiers are then recorded in the {@link AvailabilityService} filter of every node.
      *
      * @param request {@link SignupRequest} the signup request containing user input data
      * @return Mono emitting the created User or error if validation fails
      */
     public Mono<User> createUser(SignupRequest request) {
-        return checkIfEmailOrUsernameTaken(request)
-            .then(Mono.defer(() -> encodePassword(request.getPassword())))
-            .map(encodedPwd -> buildUser(request, encodedPwd))
-            .flatMap(userRepository::save);
+        return prepareUser(request)
+            .flatMap(user -> userRepository.save(user)
+                .flatMap(saved -> userEventOutbox.append(saved.getId(), UserEventType.CREATED, Map.of(
+                        "email", saved.getEmail(),
+                        "username", saved.getUsername(),
+                        "firstName", saved.getFirstName(),
+                        "lastName", saved.getLastName()))
+                    .thenReturn(saved))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(DataIntegrityViolationException.class, this::mapUniqueViolation)
+                .transform(authFlowMetrics.stage(AuthStage.INSERT_USER)))
+            .flatMap(user -> availabilityService.recordTaken(user.getEmail(), user.getUsername())
+                .onErrorResume(e -> {
+                    log.warn("Failed to broadcast taken identifiers of {}: {}", user.getId(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(user));
+    }
+
+    /**
+     * Hashes the password on the dedicated hashing pool and builds the unsaved User.
+     * @param request {@link SignupRequest} the signup request containing user input data
+     * @return Mono emitting the User, ready for {@link #createUser} style persistence
+     */
+    public Mono<User> prepareUser(SignupRequest request) {
+        return encodePassword(request.getPassword())
+            .map(encodedPwd -> buildUser(request, encodedPwd));
+    }
+
+    /**
+     * Persists many prepared users with one multi-row INSERT that also writes their
+     * {@link UserEventType#CREATED} outbox events.
+     * <p>Rows whose email or username is taken are skipped instead of failing the batch;
+     * use {@link #findTaken} to tell which identifier collided. Inserted identifiers are recorded in the
+     * {@link AvailabilityService} filter of every node.
+     *
+     * @param users users from {@link #prepareUser}
+     * @return Flux emitting the identifiers of the users actually created
+     */
+    public Flux<UserIdentifiers> createUsers(List<User> users) {
+        return userRepository.insertAllSkippingTaken(users)
+            .flatMap(created -> availabilityService.recordTaken(created.email(), created.username())
+                .onErrorResume(e -> {
+                    log.warn("Failed to broadcast taken identifiers of {}: {}", created.id(), e.getMessage());
+                    return Mono.empty();
+                })
+                .thenReturn(created));
+    }
+
+    /**
+     * Finds the users that already hold any of these emails or usernames.
+     * @param emails    emails to look up
+     * @param usernames usernames to look up
+     * @return Flux emitting the identifiers of every matching user
+     */
+    public Flux<UserIdentifiers> findTaken(Collection<String> emails, Collection<String> usernames) {
+        return userRepository.findTakenIdentifiers(emails.toArray(String[]::new), usernames.toArray(String[]::new));
     }
 
     /**
      * Authenticates a user by verifying email and password credentials.
+     * <p>The password is checked on the dedicated hashing pool ({@link PasswordHashingService}), never on the event loop.
+     * A hash made with an outdated algorithm or cost is rehashed in the background once the sign-in succeeds, unless
+     * the hashing pool is close to saturation; the upgrade is then left to a later sign-in.
      * <p>Throws {@link BusinessException} if credentials are invalid or email is not verified.
      * @param request {@link SigninRequest} containing the user's email and password.
      */
     public Mono<User> authenticate(SigninRequest request) {
         return getByEmail(request.getEmail())
             .switchIfEmpty(Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS)))
-            .flatMap(user -> {
-                if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-                    return Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS));
-                }
-                if (!user.isEmailVerified()) {
-                    return Mono.error(new BusinessException(AuthError.EMAIL_NOT_VERIFIED));
-                }
-                return Mono.just(user);
-            });
+            .transform(authFlowMetrics.stage(AuthStage.FIND_USER))
+            .flatMap(user -> passwordHashingService.matches(request.getPassword(), user.getPassword())
+                .transform(authFlowMetrics.stage(AuthStage.VERIFY_PASSWORD))
+                .flatMap(matches -> {
+                    if (!matches) {
+                        return Mono.error(new BusinessException(AuthError.INVALID_CREDENTIALS));
+                    }
+                    if (!user.isEmailVerified()) {
+                        return Mono.error(new BusinessException(AuthError.EMAIL_NOT_VERIFIED));
+                    }
+                    if (passwordHashingService.needsRehash(user.getPassword()) && passwordHashingService.hasSpareCapacity()) {
+                        rehashInBackground(user, request.getPassword());
+                    }
+                    return Mono.just(user);
+                }));
     }
 
     /**
      * Marks the user's email as verified.
-     * <p>Fetches the user by email, updates the verification status, and persists the change.
+     * <p>A single {@code UPDATE ... RETURNING id} that writes only the verification flag,
+     * plus a {@link UserEventType#EMAIL_VERIFIED} outbox event in the same transaction.
+     * <p>Throws {@link BusinessException} if no user has this email.
      * @param email the email address of the user to mark as verified.
+     * @return Mono emitting the user's id
      */
-    public Mono<User> markEmailVerified(String email) {
-        return this.getByEmail(email)
-            .flatMap(user -> {
-                user.setEmailVerified(true);
-                return userRepository.save(user);
-            });
+    public Mono<UUID> markEmailVerified(String email) {
+        return userRepository.markEmailVerified(email)
+            .flatMap(userId -> userEventOutbox.append(userId, UserEventType.EMAIL_VERIFIED, Map.of("email", email))
+                .thenReturn(userId))
+            .as(transactionalOperator::transactional)
+            .switchIfEmpty(Mono.error(new BusinessException(AuthError.USER_NOT_EXISTS)));
     }
 
     /**
      * Updates a user's password
+     * <p>Hashes the password, then stores it with a single {@code UPDATE ... RETURNING id} that writes only the hash,
+     * plus a {@link UserEventType#PASSWORD_CHANGED} outbox event in the same transaction.
      * @param email Email of user
      * @param rawPassword Plaintext password of user
+     * @return Mono emitting the user's id
      */
-    public Mono<User> updatePassword(String email, String rawPassword) {
-        return this.getByEmail(email)
-            .flatMap(user -> encodePassword(rawPassword)
-                .map(hashed -> {
-                    user.setPassword(hashed);
-                    return user;
-                }))
-            .flatMap(userRepository::save);
+    public Mono<UUID> updatePassword(String email, String rawPassword) {
+        return encodePassword(rawPassword)
+            .flatMap(hashed -> userRepository.updatePassword(email, hashed)
+                .flatMap(userId -> userEventOutbox.append(userId, UserEventType.PASSWORD_CHANGED, Map.of("email", email))
+                    .thenReturn(userId))
+                .as(transactionalOperator::transactional)
+                .switchIfEmpty(Mono.error(new BusinessException(AuthError.USER_NOT_EXISTS)))
+                .transform(authFlowMetrics.stage(AuthStage.UPDATE_PASSWORD)));
     }
 
     /**
@@ -92,30 +183,44 @@ public class UserService {
     }
 
     /**
-     * Validates that the email and username are not already in use.
-     * Emits an error Mono if either is taken.
-     * @param req the signup request containing the email and username
-     * @return Mono.empty() if both are free, otherwise error
+     * Maps a UNIQUE violation on users to the matching {@link AuthError}; other violations pass through unchanged.
+     * @param ex the translated constraint violation
+     * @return the error to emit instead
      */
-    private Mono<Void> checkIfEmailOrUsernameTaken(SignupRequest req) {
-        return Mono.zip(
-            userRepository.findByEmail(req.getEmail()).hasElement(),
-            userRepository.findByUsername(req.getUsername()).hasElement()
-        ).flatMap(tuple -> {
-            if (tuple.getT1()) return Mono.error(new BusinessException(AuthError.EMAIL_IN_USE));
-            if (tuple.getT2()) return Mono.error(new BusinessException(AuthError.USERNAME_IN_USE));
-            return Mono.empty();
-        });
+    private Throwable mapUniqueViolation(DataIntegrityViolationException ex) {
+        String constraint = ex.getCause() instanceof PostgresqlException pgEx
+            ? pgEx.getErrorDetails().getConstraintName().orElse("")
+            : "";
+        return switch (constraint) {
+            case EMAIL_CONSTRAINT    -> new BusinessException(AuthError.EMAIL_IN_USE);
+            case USERNAME_CONSTRAINT -> new BusinessException(AuthError.USERNAME_IN_USE);
+            default -> ex;
+        };
     }
 
     /**
-     * Encodes the raw password on a boundedElastic scheduler (off the event loop).
+     * Encodes the raw password on the dedicated hashing pool (off the event loop).
      * @param rawPassword the plaintext password
      * @return Mono emitting the encoded password
      */
     private Mono<String> encodePassword(String rawPassword) {
-        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword))
-            .subscribeOn(Schedulers.boundedElastic());
+        return passwordHashingService.encode(rawPassword)
+            .transform(authFlowMetrics.stage(AuthStage.HASH_PASSWORD));
+    }
+
+    /**
+     * Rehashes a confirmed password with the current encoder and stores it, without delaying the sign-in.
+     * <p>The update only applies if the stored hash is unchanged; failures are logged and retried on the next sign-in.
+     * @param user        the authenticated user, holding the outdated hash
+     * @param rawPassword the plaintext password that just matched
+     */
+    private void rehashInBackground(User user, String rawPassword) {
+        String oldPassword = user.getPassword();
+        encodePassword(rawPassword)
+            .flatMap(newPassword -> userRepository.replacePassword(user.getId(), oldPassword, newPassword))
+            .subscribe(
+                updated -> log.debug("Upgraded password hash for user {} ({} row)", user.getId(), updated),
+                e -> log.warn("Password hash upgrade failed for user {}: {}", user.getId(), e.getMessage()));
     }
 
     /**
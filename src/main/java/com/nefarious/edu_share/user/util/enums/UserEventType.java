@@ -0,0 +1,14 @@
+package com.nefarious.edu_share.user.util.enums;
+
+/**
+ * User lifecycle events published to other services
+ * <br>
+ * CREATED: a user signed up
+ * <br>
+ * EMAIL_VERIFIED: the user confirmed their email with an OTP
+ * <br>
+ * PASSWORD_CHANGED: the user reset their password
+ */
+public enum UserEventType {
+    CREATED, EMAIL_VERIFIED, PASSWORD_CHANGED
+}
@@ -0,0 +1,54 @@
+-- Store an access/refresh token pair and index it under the user in one round trip.
+-- The index is a sorted set with one "<access key> <refresh key>" member per session, scored by the session's expiry,
+-- so dead sessions are pruned on write and the oldest ones are evicted once the per-user cap is reached.
+-- The index remembers the session generation it was written under: once the generation has moved on, every indexed
+-- session was invalidated by "log out everywhere" and is dropped here, so its long-lived keys do not linger.
+-- KEYS[1] access:<token>   KEYS[2] refresh:<token>   KEYS[3] user-sessions:<userId>   KEYS[4] user-sessions-gen:<userId>
+-- ARGV[1] userId   ARGV[2] access TTL (ms)   ARGV[3] refresh TTL (ms)   ARGV[4] now (ms)   ARGV[5] max sessions per user
+-- ARGV[6] session generation of the new pair
+-- Returns the evicted and invalidated session members; the caller deletes their token keys, which are not declared in KEYS.
+local now = tonumber(ARGV[4])
+local accessTtl = tonumber(ARGV[2])
+local refreshTtl = tonumber(ARGV[3])
+local generation = tonumber(ARGV[6])
+local evicted = {}
+
+-- Migrate a legacy user-sessions LIST into the sorted-set index, keeping every live key revocable
+if redis.call('TYPE', KEYS[3]).ok == 'list' then
+    local legacy = redis.call('LRANGE', KEYS[3], 0, -1)
+    redis.call('DEL', KEYS[3])
+    for _, key in ipairs(legacy) do
+        local ttl = redis.call('PTTL', key)
+        if ttl > 0 then
+            redis.call('ZADD', KEYS[3], now + ttl, key)
+        end
+    end
+end
+
+-- An index without a generation predates this check; it is adopted as is rather than guessed stale
+local indexed = redis.call('GET', KEYS[4])
+if indexed and tonumber(indexed) < generation then
+    evicted = redis.call('ZRANGE', KEYS[3], 0, -1)
+    redis.call('DEL', KEYS[3])
+end
+if not indexed or tonumber(indexed) < generation then
+    redis.call('SET', KEYS[4], generation)
+end
+
+redis.call('SET', KEYS[1], ARGV[1], 'PX', accessTtl)
+redis.call('SET', KEYS[2], ARGV[1], 'PX', refreshTtl)
+redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now)
+redis.call('ZADD', KEYS[3], now + math.max(accessTtl, refreshTtl), KEYS[1] .. ' ' .. KEYS[2])
+
+local overflow = redis.call('ZCARD', KEYS[3]) - tonumber(ARGV[5])
+if overflow > 0 then
+    local popped = redis.call('ZPOPMIN', KEYS[3], overflow)
+    for i = 1, #popped, 2 do
+        evicted[#evicted + 1] = popped[i]
+    end
+end
+
+local newest = redis.call('ZRANGE', KEYS[3], -1, -1, 'WITHSCORES')
+redis.call('PEXPIREAT', KEYS[3], math.floor(tonumber(newest[2])))
+redis.call('PEXPIREAT', KEYS[4], math.floor(tonumber(newest[2])))
+return evicted
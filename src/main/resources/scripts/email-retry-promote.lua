@@ -0,0 +1,10 @@
+-- Move one due retry back into the email outbox stream. ZREM succeeds on one node only, and the XADD happens in
+-- the same call, so a retry is promoted exactly once and never lost between the two.
+-- KEYS[1] email-outbox-retry   KEYS[2] email-outbox
+-- ARGV[1] retry member   ARGV[2] approximate max length of the stream   ARGV[3..] field/value pairs of the entry
+-- Returns 1 if promoted, 0 if another node already did
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('XADD', KEYS[2], 'MAXLEN', '~', ARGV[2], '*', unpack(ARGV, 3))
+return 1
@@ -0,0 +1,26 @@
+-- Check a stateless OTP the caller already compared locally, counting failed attempts like otp-verify.lua does.
+-- A matching code is accepted once, and only if it was issued after the last one consumed, so a replayed or older
+-- code from the same window is rejected. Once max attempts have failed, the issued code is burned until the next send.
+-- KEYS[1] otp-used:<email>   KEYS[2] otp-attempts:<email>
+-- ARGV[1] issue counter of the latest code   ARGV[2] TTL (s), the validity window of a code
+-- ARGV[3] '1' if the submitted code matched, '0' otherwise   ARGV[4] max failed attempts
+-- Returns 1 if consumed, 0 if rejected, -1 if the attempts are exhausted
+local maxAttempts = tonumber(ARGV[4])
+if tonumber(redis.call('GET', KEYS[2]) or '0') >= maxAttempts then
+    return -1
+end
+if ARGV[3] == '1' then
+    local last = redis.call('GET', KEYS[1])
+    if last and tonumber(last) >= tonumber(ARGV[1]) then
+        return 0
+    end
+    redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+    redis.call('DEL', KEYS[2])
+    return 1
+end
+local attempts = redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[2])
+if attempts >= maxAttempts then
+    return -1
+end
+return 0
@@ -0,0 +1,10 @@
+-- Issue a stateless OTP: bump the per-email issue counter that is mixed into the derived code, so every send yields
+-- a fresh code and invalidates the previous one, and reset the failed attempts of the previous code.
+-- The counter outlives the consumed marker of any code issued under it, so it never restarts below that marker.
+-- KEYS[1] otp-issued:<email>   KEYS[2] otp-attempts:<email>
+-- ARGV[1] counter TTL (ms)
+-- Returns the new issue counter
+local issue = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+redis.call('DEL', KEYS[2])
+return issue
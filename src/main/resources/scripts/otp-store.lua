@@ -0,0 +1,7 @@
+-- Store a fresh OTP as a hash {code, attempts}, replacing any previous code (or legacy plain-string value).
+-- KEYS[1] otp:<email>
+-- ARGV[1] code   ARGV[2] TTL (s)
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return 1
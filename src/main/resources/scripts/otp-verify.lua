@@ -0,0 +1,32 @@
+-- Check a submitted OTP and consume it on success, counting failed attempts in the same call.
+-- Once max attempts have failed the code is burned, so it cannot be brute-forced within its TTL.
+-- KEYS[1] otp:<email>
+-- ARGV[1] submitted code   ARGV[2] max failed attempts
+-- Returns 1 if valid (and deleted), 0 if invalid or missing, -1 if invalid and the attempts are now exhausted
+local keyType = redis.call('TYPE', KEYS[1]).ok
+if keyType == 'none' then
+    return 0
+end
+if keyType == 'string' then
+    -- Legacy plain-string OTP: convert to a hash, keeping its TTL
+    local legacyCode = redis.call('GET', KEYS[1])
+    local ttl = redis.call('PTTL', KEYS[1])
+    redis.call('DEL', KEYS[1])
+    redis.call('HSET', KEYS[1], 'code', legacyCode, 'attempts', 0)
+    if ttl > 0 then
+        redis.call('PEXPIRE', KEYS[1], ttl)
+    end
+elseif keyType ~= 'hash' then
+    return 0
+end
+
+if redis.call('HGET', KEYS[1], 'code') == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if attempts >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1])
+    return -1
+end
+return 0
@@ -0,0 +1,18 @@
+-- Fixed-window counter: INCR and TTL in one atomic step, so a counter can never be left without a TTL.
+-- KEYS[1] rate-limit:<key>
+-- ARGV[1] limit   ARGV[2] window (ms)
+-- Returns 1 if admitted, 0 if the limit is exceeded (which restarts the cooldown).
+-- A key left over from another algorithm holds a different type; start it over
+local keyType = redis.call('TYPE', KEYS[1]).ok
+if keyType ~= 'none' and keyType ~= 'string' then
+    redis.call('DEL', KEYS[1])
+end
+local count = redis.call('INCR', KEYS[1])
+if count == 1 or redis.call('PTTL', KEYS[1]) < 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+if count <= tonumber(ARGV[1]) then
+    return 1
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 0
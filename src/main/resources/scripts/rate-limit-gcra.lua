@@ -0,0 +1,21 @@
+-- Generic cell rate algorithm (token bucket equivalent): one call per window/limit with bursts of up to <limit>.
+-- Stores only the theoretical arrival time (TAT) of the next call.
+-- KEYS[1] rate-limit:<key>
+-- ARGV[1] limit   ARGV[2] window (ms)
+-- Returns 1 if admitted, 0 otherwise. Uses the Redis clock so nodes with skewed clocks agree.
+-- A key left over from another algorithm holds a different type; start it over
+local keyType = redis.call('TYPE', KEYS[1]).ok
+if keyType ~= 'none' and keyType ~= 'string' then
+    redis.call('DEL', KEYS[1])
+end
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local window = tonumber(ARGV[2])
+local interval = window / tonumber(ARGV[1])
+local tat = math.max(tonumber(redis.call('GET', KEYS[1]) or now) or now, now)
+local newTat = tat + interval
+if newTat - window > now then
+    return 0
+end
+redis.call('SET', KEYS[1], newTat, 'PX', math.ceil(newTat - now))
+return 1
@@ -0,0 +1,19 @@
+-- Sliding log: admits at most <limit> calls in any trailing window, so there is no burst at window edges.
+-- KEYS[1] rate-limit:<key>
+-- ARGV[1] limit   ARGV[2] window (ms)   ARGV[3] unique member for this call
+-- Returns 1 if admitted, 0 otherwise. Uses the Redis clock so nodes with skewed clocks agree.
+-- A key left over from another algorithm holds a different type; start it over
+local keyType = redis.call('TYPE', KEYS[1]).ok
+if keyType ~= 'none' and keyType ~= 'zset' then
+    redis.call('DEL', KEYS[1])
+end
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local window = tonumber(ARGV[2])
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('ZADD', KEYS[1], now, ARGV[3])
+redis.call('PEXPIRE', KEYS[1], window)
+return 1
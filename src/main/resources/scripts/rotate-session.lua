@@ -0,0 +1,70 @@
+-- Atomically replace a token pair. Nothing is written unless the old refresh token is still live for the user,
+-- so a crash or a concurrent refresh can never leave a half-rotated session behind.
+-- KEYS[1] old refresh:<token>   KEYS[2] old access:<token>   KEYS[3] new access:<token>   KEYS[4] new refresh:<token>
+-- KEYS[5] user-sessions:<userId>   KEYS[6] revoked-tokens   KEYS[7] session-gen:<userId>   KEYS[8] revoked-tokens-recent
+-- KEYS[9] user-sessions-gen:<userId>, kept alive with the index
+-- The access token revoked is the one indexed with the old refresh token, not the one the client presents: KEYS[2]
+-- and ARGV[4], ARGV[7] are only used to share the revocation when both are the same token.
+-- Returns {0} if nothing was rotated, {1} if rotated, {1, access key} if rotated and that access key was revoked with it
+-- ARGV[1] userId   ARGV[2] access TTL (ms)   ARGV[3] refresh TTL (ms)
+-- ARGV[4] presented access jti ('' if none or if revocations are not shared)   ARGV[5] now (ms)
+-- ARGV[6] session generation of the old refresh token   ARGV[7] presented access token expiry (ms)
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return {0}
+end
+-- Sessions invalidated since the refresh token was issued: its key is only left to expire
+if tonumber(redis.call('GET', KEYS[7]) or '0') > tonumber(ARGV[6]) then
+    return {0}
+end
+local now = tonumber(ARGV[5])
+local accessTtl = tonumber(ARGV[2])
+local refreshTtl = tonumber(ARGV[3])
+
+-- Migrate a legacy user-sessions LIST into the sorted-set index, keeping every live key revocable
+if redis.call('TYPE', KEYS[5]).ok == 'list' then
+    local legacy = redis.call('LRANGE', KEYS[5], 0, -1)
+    redis.call('DEL', KEYS[5])
+    for _, key in ipairs(legacy) do
+        local ttl = redis.call('PTTL', key)
+        if ttl > 0 then
+            redis.call('ZADD', KEYS[5], now + ttl, key)
+        end
+    end
+end
+
+redis.call('DEL', KEYS[1])
+-- Find the access key paired with the old refresh key in the index
+local suffix = ' ' .. KEYS[1]
+local accessKey = false
+for _, member in ipairs(redis.call('ZRANGE', KEYS[5], 0, -1)) do
+    if string.sub(member, -#suffix) == suffix then
+        accessKey = string.sub(member, 1, #member - #suffix)
+        redis.call('ZREM', KEYS[5], member)
+        break
+    end
+end
+if not accessKey then
+    -- Legacy members are single keys: the presented access token only counts if it is indexed itself
+    redis.call('ZREM', KEYS[5], KEYS[1])
+    if redis.call('ZREM', KEYS[5], KEYS[2]) == 1 then
+        accessKey = KEYS[2]
+    end
+end
+local result = {1}
+if accessKey and redis.call('GET', accessKey) == ARGV[1] then
+    redis.call('DEL', accessKey)
+    if accessKey == KEYS[2] and ARGV[4] ~= '' then
+        redis.call('ZADD', KEYS[6], ARGV[7], ARGV[4])
+        redis.call('ZADD', KEYS[8], now, ARGV[4])
+    end
+    result[2] = accessKey
+end
+redis.call('SET', KEYS[3], ARGV[1], 'PX', accessTtl)
+redis.call('SET', KEYS[4], ARGV[1], 'PX', refreshTtl)
+redis.call('ZREMRANGEBYSCORE', KEYS[5], '-inf', now)
+redis.call('ZADD', KEYS[5], now + math.max(accessTtl, refreshTtl), KEYS[3] .. ' ' .. KEYS[4])
+
+local newest = redis.call('ZRANGE', KEYS[5], -1, -1, 'WITHSCORES')
+redis.call('PEXPIREAT', KEYS[5], math.floor(tonumber(newest[2])))
+redis.call('PEXPIREAT', KEYS[9], math.floor(tonumber(newest[2])))
+return result
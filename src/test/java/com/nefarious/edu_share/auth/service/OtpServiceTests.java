@@ -0,0 +1,175 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.nefarious.edu_share.auth.util.enums.OtpMode;
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Issues and checks OTPs through {@link OtpService} against a real Redis: compare-and-delete and the attempt limit
+ * of stored codes, and the validity window, replay protection and attempt limit of stateless ones.
+ */
+class OtpServiceTests {
+    private static final String EMAIL = "user@example.com";
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int TTL_SECONDS = 600;
+    private static final long STEP_SECONDS = 60;
+
+    private static EmbeddedRedis embeddedRedis;
+    private static ReactiveStringRedisTemplate redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        redis = embeddedRedis.template();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        embeddedRedis.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        embeddedRedis.flush();
+    }
+
+    @Test
+    void storedCodeIsAcceptedOnceAndDeleted() {
+        OtpService otpService = otpService(OtpMode.STORED);
+        String code = otpService.getOtp(EMAIL).block();
+
+        assertThat(redis.getExpire("otp:" + EMAIL).block()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(TTL_SECONDS));
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isTrue();
+        assertThat(redis.hasKey("otp:" + EMAIL).block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isFalse();
+    }
+
+    @Test
+    void storedCodeIsBurnedOnceTheAttemptsAreExhausted() {
+        OtpService otpService = otpService(OtpMode.STORED);
+        String code = otpService.getOtp(EMAIL).block();
+
+        assertThat(otpService.validateOtp(EMAIL, "wrong-code").block()).isFalse();
+        assertThatThrownBy(() -> otpService.validateOtp(EMAIL, "wrong-code").block())
+                .isInstanceOfSatisfying(BusinessException.class,
+                        ex -> assertThat(ex.getBusinessError()).isEqualTo(BaseError.TOO_MANY_ATTEMPTS));
+        // The right code no longer helps
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isFalse();
+    }
+
+    @Test
+    void resendingAStoredCodeResetsTheAttempts() {
+        OtpService otpService = otpService(OtpMode.STORED);
+        otpService.getOtp(EMAIL).block();
+        assertThat(otpService.validateOtp(EMAIL, "wrong-code").block()).isFalse();
+
+        String code = otpService.getOtp(EMAIL).block();
+
+        // One wrong code short of the limit again
+        assertThat(otpService.validateOtp(EMAIL, "wrong-code").block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isTrue();
+    }
+
+    @Test
+    void legacyPlainStringCodeIsStillAccepted() {
+        OtpService otpService = otpService(OtpMode.STORED);
+        redis.opsForValue().set("otp:" + EMAIL, "LEGACY1234", Duration.ofMinutes(5)).block();
+
+        assertThat(otpService.validateOtp(EMAIL, "wrong-code").block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, "LEGACY1234").block()).isTrue();
+    }
+
+    @Test
+    void checkingWithoutAnIssuedCodeFails() {
+        assertThat(otpService(OtpMode.STORED).validateOtp(EMAIL, "any-code").block()).isFalse();
+    }
+
+    @Test
+    void statelessCodeIsAcceptedOnceAndNeverReplayed() {
+        OtpService otpService = otpService(OtpMode.STATELESS);
+        String code = otpService.getOtp(EMAIL).block();
+
+        assertThat(redis.hasKey("otp:" + EMAIL).block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isTrue();
+        assertThat(otpService.validateOtp(EMAIL, code).block()).isFalse();
+    }
+
+    @Test
+    void statelessIssueCounterIsBumpedWithItsExpiry() {
+        OtpService otpService = otpService(OtpMode.STATELESS);
+        otpService.getOtp(EMAIL).block();
+        otpService.getOtp(EMAIL).block();
+
+        assertThat(redis.opsForValue().get("otp-issued:" + EMAIL).block()).isEqualTo("2");
+        assertThat(redis.getExpire("otp-issued:" + EMAIL).block())
+                .isGreaterThan(Duration.ofSeconds(TTL_SECONDS)).isLessThanOrEqualTo(Duration.ofSeconds(2L * TTL_SECONDS));
+    }
+
+    @Test
+    void resendingAStatelessCodeInvalidatesThePreviousOne() {
+        OtpService otpService = otpService(OtpMode.STATELESS);
+        String first = otpService.getOtp(EMAIL).block();
+        String second = otpService.getOtp(EMAIL).block();
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(otpService.validateOtp(EMAIL, first).block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, second).block()).isTrue();
+    }
+
+    @Test
+    void statelessCodeIsValidForTheStepsOfItsWindowOnly() {
+        OtpService otpService = otpService(OtpMode.STATELESS);
+        otpService.getOtp(EMAIL).block();
+        long step = System.currentTimeMillis() / 1000 / STEP_SECONDS;
+        long windowSteps = TTL_SECONDS / STEP_SECONDS;
+
+        assertThat(otpService.validateOtp(EMAIL, otpService.deriveOtp(EMAIL, 1, step - windowSteps)).block()).isFalse();
+        assertThat(otpService.validateOtp(EMAIL, otpService.deriveOtp(EMAIL, 1, step - windowSteps + 1)).block()).isTrue();
+    }
+
+    @Test
+    void statelessCodeIsBurnedOnceTheAttemptsAreExhaustedUntilTheNextSend() {
+        OtpService otpService = otpService(OtpMode.STATELESS);
+        String code = otpService.getOtp(EMAIL).block();
+
+        assertThat(otpService.validateOtp(EMAIL, "wrong-code").block()).isFalse();
+        assertThatThrownBy(() -> otpService.validateOtp(EMAIL, "wrong-code").block())
+                .isInstanceOfSatisfying(BusinessException.class,
+                        ex -> assertThat(ex.getBusinessError()).isEqualTo(BaseError.TOO_MANY_ATTEMPTS));
+        assertThatThrownBy(() -> otpService.validateOtp(EMAIL, code).block()).isInstanceOf(BusinessException.class);
+
+        String next = otpService.getOtp(EMAIL).block();
+        assertThat(otpService.validateOtp(EMAIL, next).block()).isTrue();
+        assertThat(redis.hasKey("otp-attempts:" + EMAIL).block()).isFalse();
+    }
+
+    @Test
+    void statelessCheckWithoutAnIssuedCodeTouchesNothing() {
+        assertThat(otpService(OtpMode.STATELESS).validateOtp(EMAIL, "any-code").block()).isFalse();
+        assertThat(redis.hasKey("otp-attempts:" + EMAIL).block()).isFalse();
+    }
+
+    private OtpService otpService(OtpMode mode) {
+        OtpService otpService = new OtpService(redis);
+        ReflectionTestUtils.setField(otpService, "otpTtl", TTL_SECONDS);
+        ReflectionTestUtils.setField(otpService, "otpMaxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(otpService, "otpMode", mode);
+        ReflectionTestUtils.setField(otpService, "otpStepSeconds", STEP_SECONDS);
+        ReflectionTestUtils.setField(otpService, "otpSecret", "test-otp-secret-at-least-32-bytes-long!");
+        otpService.init();
+        return otpService;
+    }
+}
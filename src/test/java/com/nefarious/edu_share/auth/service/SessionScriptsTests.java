@@ -0,0 +1,241 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the session scripts against a real Redis: creating, evicting, migrating the legacy index, rotating,
+ * and the session generation checks.
+ */
+class SessionScriptsTests {
+    private static final long ACCESS_TTL_MS = 60_000;
+    private static final long REFRESH_TTL_MS = 120_000;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CREATE_SESSION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/create-session.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROTATE_SESSION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rotate-session.lua"), List.class);
+
+    private static EmbeddedRedis embeddedRedis;
+    private static ReactiveStringRedisTemplate redis;
+
+    private final String userId = UUID.randomUUID().toString();
+    private final String index = "user-sessions:" + userId;
+    private final String indexGeneration = "user-sessions-gen:" + userId;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        redis = embeddedRedis.template();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        embeddedRedis.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        embeddedRedis.flush();
+    }
+
+    @Test
+    void createStoresBothKeysAndIndexesThePair() {
+        List<?> evicted = create("a1", "r1", 5);
+
+        assertThat(evicted).isEmpty();
+        assertThat(redis.opsForValue().get("access:a1").block()).isEqualTo(userId);
+        assertThat(redis.opsForValue().get("refresh:r1").block()).isEqualTo(userId);
+        assertThat(redis.getExpire("access:a1").block()).isPositive().isLessThanOrEqualTo(Duration.ofMillis(ACCESS_TTL_MS));
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactly("access:a1 refresh:r1");
+        assertThat(redis.getExpire(index).block()).isPositive();
+        assertThat(redis.opsForValue().get(indexGeneration).block()).isEqualTo("0");
+        assertThat(redis.getExpire(indexGeneration).block()).isPositive();
+    }
+
+    @Test
+    void createEvictsTheOldestSessionsBeyondTheCapWithoutDeletingTheirKeys() throws InterruptedException {
+        create("a1", "r1", 2);
+        Thread.sleep(2);
+        create("a2", "r2", 2);
+        Thread.sleep(2);
+        List<?> evicted = create("a3", "r3", 2);
+
+        assertThat(evicted).containsExactly("access:a1 refresh:r1");
+        assertThat(redis.opsForZSet().size(index).block()).isEqualTo(2);
+        // The caller unlinks the evicted keys in batches
+        assertThat(redis.hasKey("access:a1").block()).isTrue();
+    }
+
+    @Test
+    void createMigratesTheLegacyListKeepingOnlyLiveKeys() {
+        redis.opsForValue().set("access:legacy", userId, Duration.ofMinutes(1)).block();
+        redis.opsForValue().set("refresh:legacy", userId, Duration.ofMinutes(2)).block();
+        redis.opsForList().rightPushAll(index, "access:legacy", "refresh:legacy", "access:gone").block();
+
+        List<?> evicted = create("a1", "r1", 2);
+
+        assertThat(redis.type(index).block()).isEqualTo(DataType.ZSET);
+        assertThat(evicted).containsExactly("access:legacy");
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactlyInAnyOrder("refresh:legacy", "access:a1 refresh:r1");
+    }
+
+    @Test
+    void createDropsSessionsIndexedUnderAnOlderGeneration() {
+        create("a1", "r1", 5, 0);
+        create("a2", "r2", 5, 0);
+
+        List<?> removed = create("a3", "r3", 5, 1);
+
+        assertThat(removed).containsExactlyInAnyOrder("access:a1 refresh:r1", "access:a2 refresh:r2");
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactly("access:a3 refresh:r3");
+        assertThat(redis.opsForValue().get(indexGeneration).block()).isEqualTo("1");
+    }
+
+    @Test
+    void createAdoptsAnIndexWrittenBeforeGenerationsWereTracked() {
+        create("a1", "r1", 5, 0);
+        redis.delete(indexGeneration).block();
+
+        assertThat(create("a2", "r2", 5, 3)).isEmpty();
+        assertThat(redis.opsForZSet().size(index).block()).isEqualTo(2);
+        assertThat(redis.opsForValue().get(indexGeneration).block()).isEqualTo("3");
+    }
+
+    @Test
+    void createNeverLowersTheIndexedGeneration() {
+        create("a1", "r1", 5, 2);
+
+        assertThat(create("a2", "r2", 5, 1)).isEmpty();
+        assertThat(redis.opsForValue().get(indexGeneration).block()).isEqualTo("2");
+    }
+
+    @Test
+    void rotateRejectsAPairFromAnOlderGeneration() {
+        create("a1", "r1", 5, 0);
+        redis.opsForValue().increment("session-gen:" + userId).block();
+
+        assertThat(rotate("a1", "r1", "a2", "r2", "jti-1", 0)).containsExactly(0L);
+        assertThat(redis.hasKey("refresh:r1").block()).isTrue();
+        assertThat(redis.hasKey("access:a2").block()).isFalse();
+
+        assertThat(rotate("a1", "r1", "a2", "r2", "jti-1", 1)).containsExactly(1L, "access:a1");
+    }
+
+    @Test
+    void rotateReplacesThePairOnlyOnce() {
+        create("a1", "r1", 5);
+
+        assertThat(rotate("a1", "r1", "a2", "r2", "jti-1")).containsExactly(1L, "access:a1");
+        assertThat(redis.hasKey("access:a1").block()).isFalse();
+        assertThat(redis.hasKey("refresh:r1").block()).isFalse();
+        assertThat(redis.opsForValue().get("access:a2").block()).isEqualTo(userId);
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactly("access:a2 refresh:r2");
+        assertThat(redis.opsForZSet().score("revoked-tokens", "jti-1").block()).isNotNull();
+
+        // A concurrent refresh presenting the same pair loses
+        assertThat(rotate("a1", "r1", "a3", "r3", "jti-1")).containsExactly(0L);
+        assertThat(redis.hasKey("access:a3").block()).isFalse();
+    }
+
+    @Test
+    void rotateLeavesAnotherUsersAccessTokenAlone() {
+        create("a1", "r1", 5);
+        redis.opsForValue().set("access:foreign", UUID.randomUUID().toString()).block();
+
+        assertThat(rotate("foreign", "r1", "a2", "r2", "jti-foreign")).containsExactly(1L, "access:a1");
+        assertThat(redis.hasKey("access:foreign").block()).isTrue();
+        assertThat(redis.opsForZSet().score("revoked-tokens", "jti-foreign").block()).isNull();
+    }
+
+    @Test
+    void rotateRevokesTheAccessTokenIndexedWithTheRefreshTokenNotThePresentedOne() {
+        create("a1", "r1", 5);
+        create("a9", "r9", 5);
+
+        assertThat(rotate("a9", "r1", "a2", "r2", "jti-9")).containsExactly(1L, "access:a1");
+        assertThat(redis.hasKey("access:a1").block()).isFalse();
+        assertThat(redis.hasKey("access:a9").block()).isTrue();
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactlyInAnyOrder("access:a9 refresh:r9", "access:a2 refresh:r2");
+        // The caller records the revocation of access:a1; the presented token's jti is not shared
+        assertThat(redis.opsForZSet().score("revoked-tokens", "jti-9").block()).isNull();
+    }
+
+    @Test
+    void rotateOfALegacyRefreshKeyRevokesThePresentedTokenOnlyIfIndexed() {
+        redis.opsForValue().set("access:legacy", userId, Duration.ofMinutes(1)).block();
+        redis.opsForValue().set("refresh:legacy", userId, Duration.ofMinutes(2)).block();
+        redis.opsForList().rightPushAll(index, "access:legacy", "refresh:legacy").block();
+
+        assertThat(rotate("legacy", "legacy", "a2", "r2", "jti-legacy")).containsExactly(1L, "access:legacy");
+        assertThat(redis.hasKey("access:legacy").block()).isFalse();
+        assertThat(redis.opsForZSet().score("revoked-tokens", "jti-legacy").block()).isNotNull();
+        assertThat(redis.opsForZSet().range(index, Range.unbounded()).collectList().block())
+                .containsExactly("access:a2 refresh:r2");
+    }
+
+    @Test
+    void rotateSharesNoRevocationWhenNoJtiIsPassed() {
+        create("a1", "r1", 5);
+
+        assertThat(rotate("a1", "r1", "a2", "r2", "")).containsExactly(1L, "access:a1");
+        assertThat(redis.hasKey("revoked-tokens").block()).isFalse();
+        assertThat(redis.hasKey("revoked-tokens-recent").block()).isFalse();
+    }
+
+    private List<?> create(String access, String refresh, int maxPerUser) {
+        return create(access, refresh, maxPerUser, 0);
+    }
+
+    private List<?> create(String access, String refresh, int maxPerUser, long generation) {
+        return redis.execute(CREATE_SESSION_SCRIPT,
+                        List.of("access:" + access, "refresh:" + refresh, index, indexGeneration),
+                        List.of(userId, String.valueOf(ACCESS_TTL_MS), String.valueOf(REFRESH_TTL_MS),
+                                String.valueOf(System.currentTimeMillis()), String.valueOf(maxPerUser),
+                                String.valueOf(generation)))
+                .next()
+                .map(evicted -> (List<?>) evicted)
+                .defaultIfEmpty(List.of())
+                .block();
+    }
+
+    private List<?> rotate(String oldAccess, String oldRefresh, String newAccess, String newRefresh, String oldJti) {
+        return rotate(oldAccess, oldRefresh, newAccess, newRefresh, oldJti, 0);
+    }
+
+    private List<?> rotate(String oldAccess, String oldRefresh, String newAccess, String newRefresh, String oldJti,
+                        long generation) {
+        long now = System.currentTimeMillis();
+        return redis.execute(ROTATE_SESSION_SCRIPT,
+                        List.of("refresh:" + oldRefresh, "access:" + oldAccess, "access:" + newAccess,
+                                "refresh:" + newRefresh, index, "revoked-tokens", "session-gen:" + userId,
+                                "revoked-tokens-recent", indexGeneration),
+                        List.of(userId, String.valueOf(ACCESS_TTL_MS), String.valueOf(REFRESH_TTL_MS), oldJti,
+                                String.valueOf(now), String.valueOf(generation), String.valueOf(now + ACCESS_TTL_MS)))
+                .next()
+                .map(result -> (List<?>) result)
+                .block();
+    }
+}
@@ -0,0 +1,189 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.nefarious.edu_share.auth.dto.TokenPair;
+import com.nefarious.edu_share.auth.security.AccessTokenCache;
+import com.nefarious.edu_share.auth.security.JwtProvider;
+import com.nefarious.edu_share.auth.security.RevocationFilter;
+import com.nefarious.edu_share.auth.security.SessionGenerations;
+import com.nefarious.edu_share.auth.util.enums.TokenType;
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Session generation checks of {@link SessionService} against a real Redis: the MGET path, the stateless path with its
+ * per-node generation cache, and the cleanup of sessions logged out everywhere.
+ */
+class SessionServiceTests {
+    private static EmbeddedRedis embeddedRedis;
+    private static ReactiveStringRedisTemplate redis;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID userId = UUID.randomUUID();
+    private JwtProvider jwtProvider;
+    private Node node;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        redis = embeddedRedis.template();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        embeddedRedis.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        embeddedRedis.flush();
+        jwtProvider = new JwtProvider();
+        ReflectionTestUtils.setField(jwtProvider, "jwtSecret", "test-secret-at-least-256-bits-long!!!!!!");
+        ReflectionTestUtils.setField(jwtProvider, "accessExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtProvider, "refreshExpirationMs", 120_000L);
+        ReflectionTestUtils.setField(jwtProvider, "verifiedCacheSize", 1_000L);
+        jwtProvider.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (node != null) {
+            node.shutdown();
+        }
+    }
+
+    @Test
+    void sessionLookupRejectsTokensOnceTheGenerationMovesOn() {
+        node = new Node(false);
+        TokenPair pair = signIn(node);
+
+        assertThat(node.sessions.validateAccessToken(pair.getAccessToken()).block()).isEqualTo(userId);
+        assertThat(node.sessions.validateRefreshToken(pair.getRefreshToken()).block()).isEqualTo(userId);
+
+        node.sessions.invalidateAllSessionsForUser(userId).block();
+
+        assertThat(node.sessions.validateAccessToken(pair.getAccessToken()).block()).isNull();
+        assertThat(node.sessions.validateRefreshToken(pair.getRefreshToken()).block()).isNull();
+    }
+
+    @Test
+    void rotationRefusesAPairFromAnOlderGeneration() {
+        node = new Node(false);
+        TokenPair pair = signIn(node);
+        node.sessions.invalidateAllSessionsForUser(userId).block();
+
+        TokenPair next = sign(1);
+        assertThat(node.sessions.rotateSession(pair, next, userId, 0).block()).isFalse();
+        assertThat(node.sessions.validateRefreshToken(next.getRefreshToken()).block()).isNull();
+    }
+
+    @Test
+    void statelessPathRejectsTokensOnceTheGenerationMovesOn() {
+        node = new Node(true);
+        TokenPair pair = signIn(node);
+
+        assertThat(node.sessions.validateAccessToken(pair.getAccessToken()).block()).isEqualTo(userId);
+
+        node.sessions.invalidateAllSessionsForUser(userId).block();
+
+        assertThat(node.sessions.validateAccessToken(pair.getAccessToken()).block()).isNull();
+    }
+
+    @Test
+    void statelessPathOnAnotherNodeLearnsTheNewGenerationFromTheBroadcast() throws InterruptedException {
+        node = new Node(true);
+        Node other = new Node(true);
+        try {
+            TokenPair pair = signIn(node);
+            // Warm the other node's generation cache
+            assertThat(other.sessions.validateAccessToken(pair.getAccessToken()).block()).isEqualTo(userId);
+
+            node.sessions.invalidateAllSessionsForUser(userId).block();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (other.sessions.validateAccessToken(pair.getAccessToken()).block() != null
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(other.sessions.validateAccessToken(pair.getAccessToken()).block()).isNull();
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    void nextSignInDeletesTheKeysOfSessionsLoggedOutEverywhere() {
+        node = new Node(false);
+        TokenPair old = signIn(node);
+        node.sessions.invalidateAllSessionsForUser(userId).block();
+
+        TokenPair current = signIn(node);
+
+        assertThat(redis.hasKey("access:" + old.getAccessToken()).block()).isFalse();
+        assertThat(redis.hasKey("refresh:" + old.getRefreshToken()).block()).isFalse();
+        assertThat(redis.opsForZSet().range("user-sessions:" + userId, Range.unbounded()).collectList().block())
+                .containsExactly("access:" + current.getAccessToken() + " refresh:" + current.getRefreshToken());
+        assertThat(node.sessions.validateAccessToken(current.getAccessToken()).block()).isEqualTo(userId);
+    }
+
+    private TokenPair signIn(Node target) {
+        long generation = target.sessions.currentGeneration(userId).block();
+        TokenPair pair = sign(generation);
+        target.sessions.createSessionPair(pair, userId, generation).block();
+        return pair;
+    }
+
+    private TokenPair sign(long generation) {
+        return new TokenPair(jwtProvider.generateToken(userId, TokenType.ACCESS, generation),
+                jwtProvider.generateToken(userId, TokenType.REFRESH, generation));
+    }
+
+    /** The per-node beans around one {@link SessionService}, wired as the application context would. */
+    private class Node {
+        private final AccessTokenCache accessTokenCache = new AccessTokenCache(redis, meterRegistry);
+        private final RevocationFilter revocationFilter = new RevocationFilter(redis);
+        private final SessionGenerations sessionGenerations = new SessionGenerations(redis, meterRegistry);
+        private final SessionService sessions =
+                new SessionService(redis, jwtProvider, accessTokenCache, revocationFilter, sessionGenerations);
+
+        Node(boolean statelessAccess) {
+            ReflectionTestUtils.setField(accessTokenCache, "maxSize", 1_000L);
+            ReflectionTestUtils.setField(accessTokenCache, "ttlSeconds", 30L);
+            ReflectionTestUtils.invokeMethod(accessTokenCache, "init");
+
+            ReflectionTestUtils.setField(revocationFilter, "statelessAccess", statelessAccess);
+            ReflectionTestUtils.setField(revocationFilter, "syncIntervalMs", 1_000L);
+            ReflectionTestUtils.setField(revocationFilter, "rebuildIntervalMs", 60_000L);
+            ReflectionTestUtils.setField(revocationFilter, "expectedRevocations", 1_000L);
+            ReflectionTestUtils.setField(revocationFilter, "falsePositiveRate", 0.001);
+            ReflectionTestUtils.invokeMethod(revocationFilter, "init");
+
+            ReflectionTestUtils.setField(sessionGenerations, "cacheSize", 1_000L);
+            ReflectionTestUtils.setField(sessionGenerations, "cacheRefreshSeconds", 30L);
+            ReflectionTestUtils.setField(sessionGenerations, "cacheExpireSeconds", 3_600L);
+            ReflectionTestUtils.invokeMethod(sessionGenerations, "init");
+
+            ReflectionTestUtils.setField(sessions, "accessExpirationMs", 60_000L);
+            ReflectionTestUtils.setField(sessions, "refreshExpirationMs", 120_000L);
+            ReflectionTestUtils.setField(sessions, "maxSessionsPerUser", 5);
+        }
+
+        void shutdown() {
+            ReflectionTestUtils.invokeMethod(accessTokenCache, "shutdown");
+            ReflectionTestUtils.invokeMethod(revocationFilter, "shutdown");
+            ReflectionTestUtils.invokeMethod(sessionGenerations, "shutdown");
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.nefarious.edu_share.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nefarious.edu_share.auth.dto.ImportResult;
+import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.util.AuthFlowMetrics;
+import com.nefarious.edu_share.auth.util.enums.ImportStatus;
+import com.nefarious.edu_share.shared.EmbeddedDatabase;
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import com.nefarious.edu_share.shared.exceptions.BaseError;
+import com.nefarious.edu_share.user.service.AvailabilityService;
+import com.nefarious.edu_share.user.service.PasswordHashingService;
+import com.nefarious.edu_share.user.service.UserEventOutbox;
+import com.nefarious.edu_share.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link UserImportService} against a real Postgres: rows skipped by {@code ON CONFLICT DO NOTHING} are resolved
+ * to the identifier they lost to, and a batch the database rejects as a whole is retried row by row so only the
+ * offending row fails. The OTP emails go to a mocked {@link AuthService}.
+ */
+class UserImportServiceTests {
+    private static final int BATCH_SIZE = 3;
+    /** Past the 30-character CHECK on the users name columns, which SignupRequest does not validate */
+    private static final String TOO_LONG_NAME = "x".repeat(31);
+
+    private static EmbeddedDatabase database;
+    private static EmbeddedRedis embeddedRedis;
+
+    private PasswordHashingService passwordHashingService;
+    private AuthService authService;
+    private UserImportService importService;
+
+    @BeforeAll
+    static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        embeddedRedis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        embeddedRedis.stop();
+        database.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.truncate();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry);
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 2);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", 16);
+        passwordHashingService.init();
+        AvailabilityService availabilityService = new AvailabilityService(database.userRepository(), embeddedRedis.template());
+        UserService userService = new UserService(database.userRepository(), passwordHashingService, availabilityService,
+                new UserEventOutbox(database.userEventRepository(), new ObjectMapper()),
+                database.transactionalOperator(), new AuthFlowMetrics(meterRegistry));
+
+        authService = mock(AuthService.class);
+        when(authService.sendOtp(anyString())).thenReturn(Mono.empty());
+        importService = new UserImportService(userService, authService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(importService, "hashConcurrency", 2);
+        ReflectionTestUtils.setField(importService, "emailConcurrency", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void everyValidRowIsCreatedAcrossBatchesInInputOrder() {
+        List<ImportResult> results = importJson(
+                signup("u1@example.com", "u1"), signup("u2@example.com", "u2"), signup("u3@example.com", "u3"),
+                signup("u4@example.com", "u4"), signup("u5@example.com", "u5"));
+
+        assertThat(results).extracting(ImportResult::getLine).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(results).extracting(ImportResult::getStatus).containsOnly(ImportStatus.CREATED);
+        assertThat(results).extracting(ImportResult::getUserId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(database.count("users")).isEqualTo(5);
+        assertThat(database.count("user_events")).isEqualTo(5);
+        verify(authService, timeout(1_000)).sendOtp("u5@example.com");
+    }
+
+    @Test
+    void rowsSkippedByTheInsertAreResolvedToWhatTheyLostTo() {
+        importJson(signup("taken@example.com", "taken"));
+
+        // Two batches: the first loses rows to an earlier import and to its own second row, the second to the first
+        List<ImportResult> results = importJson(
+                signup("taken@example.com", "fresh1"),
+                signup("fresh3@example.com", "fresh3"),
+                signup("fresh3@example.com", "other"),
+                signup("fresh2@example.com", "taken"),
+                signup("fresh5@example.com", "fresh3"),
+                signup("fresh3@example.com", "fresh3"));
+
+        assertThat(results).extracting(ImportResult::getStatus).containsExactly(
+                ImportStatus.EMAIL_IN_USE,
+                ImportStatus.CREATED,
+                ImportStatus.EMAIL_IN_USE,
+                ImportStatus.USERNAME_IN_USE,
+                ImportStatus.USERNAME_IN_USE,
+                ImportStatus.EMAIL_IN_USE);
+        assertThat(results.get(1).getUserId()).isNotNull();
+        assertThat(database.count("users")).isEqualTo(2);
+        assertThat(database.count("user_events")).isEqualTo(2);
+        verify(authService, timeout(1_000)).sendOtp("fresh3@example.com");
+        verify(authService, never()).sendOtp("fresh2@example.com");
+    }
+
+    @Test
+    void invalidRowsAreReportedWithoutReachingTheDatabase() {
+        SignupRequest badEmail = signup("not-an-email", "bad");
+
+        List<ImportResult> results = importJson(badEmail, signup("ok@example.com", "ok"));
+
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly(ImportStatus.INVALID, ImportStatus.CREATED);
+        assertThat(results.get(0).getMessage()).startsWith("email:");
+        assertThat(database.count("users")).isEqualTo(1);
+    }
+
+    @Test
+    void batchRejectedAsAWholeIsRetriedRowByRow() {
+        SignupRequest tooLong = signup("long@example.com", "long");
+        tooLong.setFirstName(TOO_LONG_NAME);
+
+        List<ImportResult> results = importJson(
+                signup("a@example.com", "a"), tooLong, signup("c@example.com", "c"));
+
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly(ImportStatus.CREATED, ImportStatus.FAILED, ImportStatus.CREATED);
+        assertThat(results.get(1).getMessage()).isEqualTo(BaseError.INTERNAL_SERVER_ERROR.getMessage());
+        assertThat(results.get(1).getUserId()).isNull();
+        assertThat(database.count("users")).isEqualTo(2);
+        assertThat(database.count("user_events")).isEqualTo(2);
+        verify(authService, never()).sendOtp("long@example.com");
+    }
+
+    @Test
+    void rowByRowRetryStillResolvesTakenIdentifiers() {
+        importJson(signup("taken@example.com", "taken"));
+        SignupRequest tooLong = signup("long@example.com", "long");
+        tooLong.setLastName(TOO_LONG_NAME);
+
+        List<ImportResult> results = importJson(
+                signup("taken@example.com", "fresh"), tooLong, signup("new@example.com", "new"));
+
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly(ImportStatus.EMAIL_IN_USE, ImportStatus.FAILED, ImportStatus.CREATED);
+        assertThat(database.count("users")).isEqualTo(2);
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeader() {
+        Flux<String> lines = Flux.just(
+                "username,email,password,firstName,lastName,dateOfBirth",
+                "alice,alice@example.com,Password1!,Alice,Smith,2000-01-01",
+                "",
+                "bob,bob@example.com,Password1!,Bob,Jones,not-a-date");
+
+        List<ImportResult> results = importService.importCsv(lines).collectList().block();
+
+        assertThat(results).extracting(ImportResult::getLine).containsExactly(2L, 4L);
+        assertThat(results).extracting(ImportResult::getStatus)
+                .containsExactly(ImportStatus.CREATED, ImportStatus.INVALID);
+        assertThat(database.count("users")).isEqualTo(1);
+    }
+
+    private List<ImportResult> importJson(SignupRequest... requests) {
+        return importService.importJson(Flux.just(requests)).collectList().block();
+    }
+
+    private static SignupRequest signup(String email, String username) {
+        SignupRequest request = new SignupRequest();
+        request.setEmail(email);
+        request.setUsername(username);
+        request.setPassword("Password1!");
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setDateOfBirth(LocalDate.of(2000, 1, 1));
+        return request;
+    }
+}
@@ -0,0 +1,47 @@
+package com.nefarious.edu_share.shared;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/** A Redis server on a free port with a connected template, shared by the tests of one class. */
+public final class EmbeddedRedis {
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+    private final ReactiveStringRedisTemplate template;
+
+    private EmbeddedRedis(RedisServer server, LettuceConnectionFactory connectionFactory) {
+        this.server = server;
+        this.connectionFactory = connectionFactory;
+        this.template = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    public static EmbeddedRedis start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer server = new RedisServer(port);
+        server.start();
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        return new EmbeddedRedis(server, connectionFactory);
+    }
+
+    public ReactiveStringRedisTemplate template() {
+        return template;
+    }
+
+    public void flush() {
+        template.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+    }
+
+    public void stop() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+}
@@ -0,0 +1,133 @@
+package com.nefarious.edu_share.shared.ratelimit;
+
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import com.nefarious.edu_share.shared.interfaces.RateLimitEngine;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the three rate limit scripts against a real Redis: each admits exactly {@code limit} calls in a window,
+ * denies the next one and admits again once the window has passed.
+ */
+class RateLimitEnginesTests {
+    private static final String KEY = "rate-limit:test";
+    private static final long LIMIT = 3;
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final Duration SHORT_WINDOW = Duration.ofMillis(300);
+
+    private static EmbeddedRedis embeddedRedis;
+    private static ReactiveStringRedisTemplate redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        embeddedRedis = EmbeddedRedis.start();
+        redis = embeddedRedis.template();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        embeddedRedis.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        embeddedRedis.flush();
+    }
+
+    @Test
+    void everyEngineAdmitsUpToTheLimitAndDeniesTheNextCall() {
+        for (RateLimitEngine engine : engines()) {
+            embeddedRedis.flush();
+            for (int call = 1; call <= LIMIT; call++) {
+                assertThat(acquire(engine, WINDOW)).as("%s call %d", engine.algorithm(), call).isTrue();
+            }
+            assertThat(acquire(engine, WINDOW)).as("%s call over the limit", engine.algorithm()).isFalse();
+            assertThat(acquire(engine, WINDOW)).as("%s call still over the limit", engine.algorithm()).isFalse();
+        }
+    }
+
+    @Test
+    void everyEngineAdmitsAgainOnceTheWindowHasPassed() throws InterruptedException {
+        for (RateLimitEngine engine : engines()) {
+            embeddedRedis.flush();
+            for (int call = 1; call <= LIMIT; call++) {
+                acquire(engine, SHORT_WINDOW);
+            }
+            assertThat(acquire(engine, SHORT_WINDOW)).as("%s call over the limit", engine.algorithm()).isFalse();
+
+            Thread.sleep(SHORT_WINDOW.toMillis() + 100);
+
+            assertThat(acquire(engine, SHORT_WINDOW)).as("%s call after the window", engine.algorithm()).isTrue();
+        }
+    }
+
+    @Test
+    void everyEngineLeavesTheKeyToExpire() {
+        for (RateLimitEngine engine : engines()) {
+            embeddedRedis.flush();
+            acquire(engine, WINDOW);
+
+            assertThat(redis.getExpire(KEY).block()).as("%s key TTL", engine.algorithm())
+                    .isPositive().isLessThanOrEqualTo(WINDOW);
+        }
+    }
+
+    @Test
+    void fixedWindowDenialRestartsTheCooldown() throws InterruptedException {
+        FixedWindowRateLimitEngine engine = new FixedWindowRateLimitEngine(redis);
+        for (int call = 1; call <= LIMIT; call++) {
+            acquire(engine, SHORT_WINDOW);
+        }
+        Thread.sleep(SHORT_WINDOW.toMillis() / 2);
+
+        assertThat(acquire(engine, SHORT_WINDOW)).isFalse();
+        // Past the original window, but within the one the denial restarted
+        Thread.sleep(SHORT_WINDOW.toMillis() * 2 / 3);
+        assertThat(acquire(engine, SHORT_WINDOW)).isFalse();
+    }
+
+    @Test
+    void slidingLogDeniesABurstAtTheWindowEdge() throws InterruptedException {
+        SlidingLogRateLimitEngine engine = new SlidingLogRateLimitEngine(redis);
+        acquire(engine, SHORT_WINDOW);
+        Thread.sleep(SHORT_WINDOW.toMillis() / 2);
+        for (int call = 2; call <= LIMIT; call++) {
+            acquire(engine, SHORT_WINDOW);
+        }
+
+        // Only the first call has left the trailing window
+        Thread.sleep(SHORT_WINDOW.toMillis() / 2 + 50);
+        assertThat(acquire(engine, SHORT_WINDOW)).isTrue();
+        assertThat(acquire(engine, SHORT_WINDOW)).isFalse();
+    }
+
+    @Test
+    void everyEngineStartsOverAKeyLeftByAnotherAlgorithm() {
+        RateLimitEngine fixedWindow = new FixedWindowRateLimitEngine(redis);
+        RateLimitEngine slidingLog = new SlidingLogRateLimitEngine(redis);
+        RateLimitEngine gcra = new GcraRateLimitEngine(redis);
+
+        assertThat(acquire(slidingLog, WINDOW)).isTrue();
+        assertThat(acquire(fixedWindow, WINDOW)).isTrue();
+        assertThat(acquire(slidingLog, WINDOW)).isTrue();
+        assertThat(acquire(gcra, WINDOW)).isTrue();
+    }
+
+    private static List<RateLimitEngine> engines() {
+        return List.of(new FixedWindowRateLimitEngine(redis), new SlidingLogRateLimitEngine(redis),
+                new GcraRateLimitEngine(redis));
+    }
+
+    private static boolean acquire(RateLimitEngine engine, Duration window) {
+        return Boolean.TRUE.equals(engine.tryAcquire(KEY, LIMIT, window).block());
+    }
+}
@@ -0,0 +1,94 @@
+package com.nefarious.edu_share.shared.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.nefarious.edu_share.shared.dto.EmailJob;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpServiceTests {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private SmtpTransportPool transportPool;
+    private SmtpService smtpService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        transportPool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(transportPool, "maxSize", 2);
+        ReflectionTestUtils.setField(transportPool, "idleTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(transportPool, "borrowTimeoutMs", 1_000L);
+        transportPool.init();
+        smtpService = new SmtpService(transportPool);
+        ReflectionTestUtils.setField(smtpService, "from", "no-reply@edushare.test");
+        smtpService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transportPool.shutdown();
+    }
+
+    @Test
+    void sendsWholeBatch() throws Exception {
+        Map<EmailJob, Exception> failed = smtpService.sendBatch(List.of(
+                EmailJob.otp("alice@edushare.test", "AAAAAAAAAA"),
+                EmailJob.otp("bob@edushare.test", "BBBBBBBBBB")));
+
+        assertThat(failed).isEmpty();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getSubject()).isEqualTo("Your Verification Code");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("AAAAAAAAAA");
+        assertThat(GreenMailUtil.getBody(received[1])).contains("BBBBBBBBBB");
+    }
+
+    @Test
+    void reusesConnectionAcrossBatches() throws Exception {
+        smtpService.sendBatch(List.of(EmailJob.otp("erin@edushare.test", "FFFFFFFFFF")));
+        Transport first = transportPool.borrow();
+        transportPool.release(first, true);
+
+        smtpService.sendBatch(List.of(EmailJob.otp("frank@edushare.test", "GGGGGGGGGG")));
+        Transport second = transportPool.borrow();
+        transportPool.release(second, true);
+
+        assertThat(second).isSameAs(first);
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void reportsOnlyFailedJobs() {
+        EmailJob invalid = EmailJob.otp("<unclosed@edushare.test", "CCCCCCCCCC");
+        EmailJob valid = EmailJob.otp("carol@edushare.test", "DDDDDDDDDD");
+
+        Map<EmailJob, Exception> failed = smtpService.sendBatch(List.of(invalid, valid));
+
+        assertThat(failed).containsOnlyKeys(invalid);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void reportsEveryJobWhenServerIsDown() {
+        greenMail.stop();
+        List<EmailJob> jobs = List.of(EmailJob.otp("dave@edushare.test", "EEEEEEEEEE"));
+
+        assertThat(smtpService.sendBatch(jobs)).containsOnlyKeys(jobs.get(0));
+    }
+}
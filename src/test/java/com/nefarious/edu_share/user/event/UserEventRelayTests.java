@@ -0,0 +1,160 @@
+package com.nefarious.edu_share.user.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nefarious.edu_share.shared.EmbeddedDatabase;
+import com.nefarious.edu_share.shared.interfaces.UserEventPublisher;
+import com.nefarious.edu_share.user.entity.UserEvent;
+import com.nefarious.edu_share.user.service.UserEventOutbox;
+import com.nefarious.edu_share.user.util.enums.UserEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The outbox path end to end against a real Postgres: events appended through {@link UserEventOutbox} are relayed
+ * to the {@link InMemoryUserEventPublisher} in id order and deleted, failed batches are retried, a live claim of
+ * another relay is respected, and no lock is held while the publisher waits.
+ */
+class UserEventRelayTests {
+    private static final int BATCH_SIZE = 2;
+    /** Same key as the relay's advisory lock */
+    private static final long RELAY_LOCK_KEY = 0x75736572L;
+
+    private static EmbeddedDatabase database;
+
+    private final UUID userId = UUID.randomUUID();
+    private InMemoryUserEventPublisher inMemoryPublisher;
+    private UserEventOutbox outbox;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        database = EmbeddedDatabase.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        database.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.truncate();
+        inMemoryPublisher = new InMemoryUserEventPublisher();
+        ReflectionTestUtils.setField(inMemoryPublisher, "capacity", 100);
+        outbox = new UserEventOutbox(database.userEventRepository(), new ObjectMapper());
+    }
+
+    @Test
+    void relaysEveryBatchInIdOrderAndDeletesTheRows() {
+        List<UserEventType> appended = List.of(UserEventType.CREATED, UserEventType.EMAIL_VERIFIED,
+                UserEventType.PASSWORD_CHANGED, UserEventType.EMAIL_VERIFIED, UserEventType.PASSWORD_CHANGED);
+        appended.forEach(this::append);
+
+        drain(relay(inMemoryPublisher));
+
+        assertThat(inMemoryPublisher.getPublished()).extracting(UserEvent::getEventType)
+                .containsExactlyElementsOf(appended.stream().map(Enum::name).toList());
+        assertThat(inMemoryPublisher.getPublished()).extracting(UserEvent::getId).isSorted();
+        assertThat(inMemoryPublisher.getPublished()).extracting(UserEvent::getUserId).containsOnly(userId);
+        assertThat(database.count("user_events")).isZero();
+    }
+
+    @Test
+    void failedBatchIsReleasedAndRetriedOnTheNextPoll() {
+        append(UserEventType.CREATED);
+        AtomicBoolean fail = new AtomicBoolean(true);
+        UserEventPublisher flaky = events -> fail.getAndSet(false)
+                ? Mono.error(new IllegalStateException("broker down"))
+                : inMemoryPublisher.publish(events);
+        UserEventRelay relay = relay(flaky);
+
+        assertThatThrownBy(() -> drain(relay)).hasMessageContaining("broker down");
+        assertThat(database.count("user_events")).isEqualTo(1);
+        assertThat(claimedRows()).isZero();
+
+        drain(relay);
+        assertThat(inMemoryPublisher.getPublished()).hasSize(1);
+        assertThat(database.count("user_events")).isZero();
+    }
+
+    @Test
+    void liveClaimOfAnotherRelayIsRespectedUntilItExpires() {
+        append(UserEventType.CREATED);
+        append(UserEventType.EMAIL_VERIFIED);
+        setClaim("now() + interval '1 minute'");
+
+        drain(relay(inMemoryPublisher));
+        assertThat(inMemoryPublisher.getPublished()).isEmpty();
+        assertThat(database.count("user_events")).isEqualTo(2);
+
+        // The other relay died: its lease ran out
+        setClaim("now() - interval '1 second'");
+        drain(relay(inMemoryPublisher));
+        assertThat(inMemoryPublisher.getPublished()).hasSize(2);
+    }
+
+    @Test
+    void noLockOrTransactionIsHeldWhilePublishing() {
+        append(UserEventType.CREATED);
+        List<Boolean> lockFreeDuringPublish = new ArrayList<>();
+        UserEventPublisher probing = events -> database.databaseClient()
+                .sql("SELECT pg_try_advisory_xact_lock(:key) AS locked")
+                .bind("key", RELAY_LOCK_KEY)
+                .map((row, metadata) -> row.get("locked", Boolean.class))
+                .one()
+                .doOnNext(lockFreeDuringPublish::add)
+                .then(inMemoryPublisher.publish(events));
+
+        drain(relay(probing));
+
+        assertThat(lockFreeDuringPublish).containsExactly(true);
+        assertThat(database.count("user_events")).isZero();
+    }
+
+    private UserEventRelay relay(UserEventPublisher publisher) {
+        UserEventRelay relay = new UserEventRelay(database.userEventRepository(), publisher,
+                database.transactionalOperator(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(relay, "pollIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(relay, "claimLeaseMs", 30_000L);
+        // Registers the meters; the hourly poll never fires during a test
+        relay.init();
+        return relay;
+    }
+
+    private static void drain(UserEventRelay relay) {
+        try {
+            ReflectionTestUtils.<Mono<Void>>invokeMethod(relay, "drain").block();
+        } finally {
+            relay.shutdown();
+        }
+    }
+
+    private void append(UserEventType type) {
+        outbox.append(userId, type, Map.of("email", "user@example.com")).block();
+    }
+
+    private static void setClaim(String claimedUntil) {
+        database.databaseClient().sql("UPDATE user_events SET claimed_until = " + claimedUntil).then().block();
+    }
+
+    private static long claimedRows() {
+        return database.databaseClient().sql("SELECT count(*) AS total FROM user_events WHERE claimed_until IS NOT NULL")
+                .map((row, metadata) -> row.get("total", Long.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,112 @@
+package com.nefarious.edu_share.user.repository;
+
+import com.nefarious.edu_share.shared.EmbeddedDatabase;
+import com.nefarious.edu_share.user.dto.UserIdentifiers;
+import com.nefarious.edu_share.user.entity.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The multi-row INSERT of {@link UserBatchRepositoryImpl} against a real Postgres: rows losing to an existing user
+ * or an earlier row of the batch are skipped, only the inserted rows are returned, and each of them gets exactly
+ * one CREATED outbox event.
+ */
+class UserBatchRepositoryTests {
+    private static EmbeddedDatabase database;
+
+    private UserRepository userRepository;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        database = EmbeddedDatabase.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        database.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.truncate();
+        userRepository = database.userRepository();
+    }
+
+    @Test
+    void returnsEveryRowOfABatchWithoutConflicts() {
+        List<UserIdentifiers> inserted = insert(user("a@example.com", "a"), user("b@example.com", "b"));
+
+        assertThat(inserted).extracting(UserIdentifiers::username).containsExactlyInAnyOrder("a", "b");
+        assertThat(inserted).extracting(UserIdentifiers::id).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(database.count("users")).isEqualTo(2);
+        assertThat(database.count("user_events")).isEqualTo(2);
+    }
+
+    @Test
+    void rowsLosingToAnExistingUserAreSkipped() {
+        insert(user("taken@example.com", "taken"));
+
+        List<UserIdentifiers> inserted = insert(
+                user("taken@example.com", "fresh1"),
+                user("fresh2@example.com", "taken"),
+                user("fresh3@example.com", "fresh3"));
+
+        assertThat(inserted).extracting(UserIdentifiers::email).containsExactly("fresh3@example.com");
+        assertThat(database.count("users")).isEqualTo(2);
+        assertThat(database.count("user_events")).isEqualTo(2);
+    }
+
+    @Test
+    void rowsLosingToAnEarlierRowOfTheBatchAreSkipped() {
+        List<UserIdentifiers> inserted = insert(
+                user("first@example.com", "first"),
+                user("first@example.com", "second"),
+                user("third@example.com", "first"),
+                user("first@example.com", "first"));
+
+        assertThat(inserted).extracting(UserIdentifiers::username).containsExactly("first");
+        assertThat(database.count("users")).isEqualTo(1);
+        assertThat(database.count("user_events")).isEqualTo(1);
+    }
+
+    @Test
+    void eventsCarryTheInsertedUser() {
+        UserIdentifiers inserted = insert(user("a@example.com", "a")).get(0);
+
+        String payload = database.databaseClient()
+                .sql("SELECT payload FROM user_events WHERE user_id = :userId AND event_type = 'CREATED'")
+                .bind("userId", inserted.id())
+                .map((row, metadata) -> row.get("payload", String.class))
+                .one()
+                .block();
+        assertThat(payload).contains("a@example.com", "First", "Last");
+    }
+
+    @Test
+    void emptyBatchTouchesNothing() {
+        assertThat(insert()).isEmpty();
+        assertThat(database.count("users")).isZero();
+    }
+
+    private List<UserIdentifiers> insert(User... users) {
+        return userRepository.insertAllSkippingTaken(List.of(users)).collectList().block();
+    }
+
+    private static User user(String email, String username) {
+        return User.builder()
+                .email(email)
+                .username(username)
+                .password("hash")
+                .firstName("First")
+                .lastName("Last")
+                .dateOfBirth(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.nefarious.edu_share.user.service;
+
+import com.nefarious.edu_share.shared.EmbeddedDatabase;
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link AvailabilityService} against a real Postgres and Redis: the filter rebuild pages through every user,
+ * absent identifiers are answered from the filter alone, and new signups reach the filter of every node.
+ */
+class AvailabilityServiceTests {
+    private static final int PAGE_SIZE = 2;
+
+    private static EmbeddedDatabase database;
+    private static EmbeddedRedis embeddedRedis;
+
+    private final List<AvailabilityService> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void start() throws Exception {
+        database = EmbeddedDatabase.start();
+        embeddedRedis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stop() throws Exception {
+        embeddedRedis.stop();
+        database.stop();
+    }
+
+    @BeforeEach
+    void truncate() {
+        database.truncate();
+    }
+
+    @AfterEach
+    void shutdown() {
+        nodes.forEach(AvailabilityService::shutdown);
+    }
+
+    @Test
+    void beforeTheFirstRebuildEveryCheckGoesToTheDatabase() {
+        AvailabilityService availability = node();
+        insertUser("alice");
+
+        assertThat(availability.isEmailAvailable("alice@example.com").block()).isFalse();
+        assertThat(availability.isUsernameAvailable("alice").block()).isFalse();
+        assertThat(availability.isUsernameAvailable("bob").block()).isTrue();
+    }
+
+    @Test
+    void rebuildPagesThroughEveryUser() {
+        List<String> usernames = List.of("u1", "u2", "u3", "u4", "u5");
+        usernames.forEach(this::insertUser);
+        AvailabilityService availability = node();
+
+        rebuild(availability);
+
+        for (String username : usernames) {
+            assertThat(availability.isEmailAvailable(username + "@example.com").block()).as(username).isFalse();
+            assertThat(availability.isUsernameAvailable(username).block()).as(username).isFalse();
+        }
+        assertThat(availability.isEmailAvailable("free@example.com").block()).isTrue();
+    }
+
+    @Test
+    void absentIdentifiersAreAnsweredFromTheFilterUntilTheNextRebuild() {
+        AvailabilityService availability = node();
+        rebuild(availability);
+
+        // Bypasses recordTaken, so only the database knows
+        insertUser("quiet");
+
+        assertThat(availability.isUsernameAvailable("quiet").block()).isTrue();
+        rebuild(availability);
+        assertThat(availability.isUsernameAvailable("quiet").block()).isFalse();
+    }
+
+    @Test
+    void recordedSignupsReachTheFilterOfEveryNode() throws InterruptedException {
+        AvailabilityService first = startedNode();
+        AvailabilityService second = startedNode();
+
+        insertUser("carol");
+        first.recordTaken("carol@example.com", "carol").block();
+
+        assertThat(first.isUsernameAvailable("carol").block()).isFalse();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Boolean.TRUE.equals(second.isUsernameAvailable("carol").block()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(second.isUsernameAvailable("carol").block()).isFalse();
+        assertThat(second.isEmailAvailable("carol@example.com").block()).isFalse();
+    }
+
+    private AvailabilityService node() {
+        AvailabilityService availability = new AvailabilityService(database.userRepository(), embeddedRedis.template());
+        ReflectionTestUtils.setField(availability, "expectedIdentifiers", 1_000L);
+        ReflectionTestUtils.setField(availability, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(availability, "pageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(availability, "rebuildIntervalMs", 3_600_000L);
+        nodes.add(availability);
+        return availability;
+    }
+
+    /** A node subscribed to the broadcasts, once its first rebuild has completed */
+    private AvailabilityService startedNode() throws InterruptedException {
+        AvailabilityService availability = node();
+        availability.init();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ReflectionTestUtils.getField(availability, "filter") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(ReflectionTestUtils.getField(availability, "filter")).isNotNull();
+        // Let the channel subscription settle before anything is published
+        Thread.sleep(200);
+        return availability;
+    }
+
+    private static void rebuild(AvailabilityService availability) {
+        ReflectionTestUtils.<Mono<Void>>invokeMethod(availability, "rebuild").block();
+    }
+
+    private void insertUser(String username) {
+        database.databaseClient().sql("""
+                        INSERT INTO users (email, username, password, first_name, last_name, date_of_birth)
+                        VALUES (:email, :username, 'hash', 'First', 'Last', :dateOfBirth)
+                        """)
+                .bind("email", username + "@example.com")
+                .bind("username", username)
+                .bind("dateOfBirth", LocalDate.of(2000, 1, 1))
+                .then()
+                .block();
+    }
+}
@@ -0,0 +1,113 @@
+package com.nefarious.edu_share.user.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nefarious.edu_share.auth.dto.SignupRequest;
+import com.nefarious.edu_share.auth.util.AuthFlowMetrics;
+import com.nefarious.edu_share.auth.util.enums.AuthError;
+import com.nefarious.edu_share.shared.EmbeddedDatabase;
+import com.nefarious.edu_share.shared.EmbeddedRedis;
+import com.nefarious.edu_share.shared.exceptions.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Signup through {@link UserService} against a real Postgres: UNIQUE violations on users map to the matching
+ * {@link AuthError}, and a rejected signup leaves neither a row nor an outbox event behind.
+ */
+class UserServiceTests {
+    private static EmbeddedDatabase database;
+    private static EmbeddedRedis embeddedRedis;
+
+    private PasswordHashingService passwordHashingService;
+    private UserService userService;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        database = EmbeddedDatabase.start();
+        embeddedRedis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        embeddedRedis.stop();
+        database.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        database.truncate();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        passwordHashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry);
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", 16);
+        passwordHashingService.init();
+        AvailabilityService availabilityService = new AvailabilityService(database.userRepository(), embeddedRedis.template());
+        userService = new UserService(database.userRepository(), passwordHashingService, availabilityService,
+                new UserEventOutbox(database.userEventRepository(), new ObjectMapper()),
+                database.transactionalOperator(), new AuthFlowMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void signupStoresTheUserAndItsCreatedEvent() {
+        userService.createUser(signup("alice@example.com", "alice")).block();
+
+        assertThat(database.count("users")).isEqualTo(1);
+        assertThat(database.count("user_events")).isEqualTo(1);
+    }
+
+    @Test
+    void takenEmailIsReportedAsEmailInUse() {
+        userService.createUser(signup("alice@example.com", "alice")).block();
+
+        assertThatThrownBy(() -> userService.createUser(signup("alice@example.com", "alice2")).block())
+                .isInstanceOfSatisfying(BusinessException.class,
+                        ex -> assertThat(ex.getBusinessError()).isEqualTo(AuthError.EMAIL_IN_USE));
+        assertThat(database.count("users")).isEqualTo(1);
+        assertThat(database.count("user_events")).isEqualTo(1);
+    }
+
+    @Test
+    void takenUsernameIsReportedAsUsernameInUse() {
+        userService.createUser(signup("alice@example.com", "alice")).block();
+
+        assertThatThrownBy(() -> userService.createUser(signup("other@example.com", "alice")).block())
+                .isInstanceOfSatisfying(BusinessException.class,
+                        ex -> assertThat(ex.getBusinessError()).isEqualTo(AuthError.USERNAME_IN_USE));
+        assertThat(database.count("users")).isEqualTo(1);
+    }
+
+    @Test
+    void otherConstraintViolationsPassThrough() {
+        assertThatThrownBy(() -> userService.createUser(signup("long@example.com", "x".repeat(31))).block())
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(database.count("users")).isZero();
+    }
+
+    private static SignupRequest signup(String email, String username) {
+        SignupRequest request = new SignupRequest();
+        request.setEmail(email);
+        request.setUsername(username);
+        request.setPassword("Password1!");
+        request.setFirstName("First");
+        request.setLastName("Last");
+        request.setDateOfBirth(LocalDate.of(2000, 1, 1));
+        return request;
+    }
+}